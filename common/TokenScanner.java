@@ -0,0 +1,383 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.InputMismatchException;
+
+/**
+ *The <tt>TokenScanner</tt> class reads whitespace-separated tokens, ints
+ *and doubles straight from bytes, as a fast replacement for the
+ *<tt>Scanner</tt>-backed <tt>In</tt> and <tt>StdIn</tt>. A file is memory
+ *mapped read-only in windows of up to 256 MiB; any other stream, and a
+ *classpath resource or URL named like <tt>In</tt> accepts them, is read
+ *through one 64 KiB buffer. Either way the bytes sit in a
+ *<tt>ByteBuffer</tt> and are scanned in place: no regular expressions, and
+ *<tt>nextInt()</tt>, <tt>nextDouble()</tt> and <tt>skip(n)</tt> create no
+ *<tt>String</tt>. Only <tt>next()</tt> decodes a token.
+ * <p>
+ * Whitespace is the ASCII subset of <tt>Character.isWhitespace</tt>
+ * (space, tab, line feed, vertical tab, form feed, carriage return and
+ * the file/group/record/unit separators). Tokens are decoded as UTF-8;
+ * multi-byte Unicode spaces are treated as part of a token, unlike
+ * <tt>StdIn.readString()</tt>.
+ * <p>
+ * Doubles whose significand has at most 15 digits and whose decimal
+ * exponent is within 22 are converted with one exact multiply or divide
+ * (Clinger's fast path), which rounds correctly; everything else,
+ * including NaN and Infinity, goes through <tt>Double.parseDouble</tt>.
+ * <p>
+ * Shared by the command-line clients of every week; compile them with
+ * <tt>-sourcepath .:../common</tt>.
+ */
+public class TokenScanner implements java.io.Closeable {
+
+    /** bytes read from a stream per fill. **/
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** bytes of a file mapped per window. **/
+    private static final int WINDOW_SIZE = 1 << 28;
+
+    /** exactly representable powers of ten. **/
+    private static final double[] POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /** source of bytes when reading a stream; null for a mapped file. **/
+    private final InputStream in;
+
+    /** whether close() closes <tt>in</tt>: true if this scanner opened it. **/
+    private final boolean ownsStream;
+
+    /** mapped file; null when reading a stream. **/
+    private final FileChannel channel;
+
+    /** file offset of the next window to map. **/
+    private long mapped;
+
+    /** bytes being scanned: a heap buffer or the current window. **/
+    private ByteBuffer buffer;
+
+    /** next unread byte in buffer. **/
+    private int position;
+
+    /** number of valid bytes in buffer. **/
+    private int limit;
+
+    /** set once the source has no more bytes. **/
+    private boolean exhausted;
+
+    /** bytes of the token being parsed; grows as needed. **/
+    private byte[] token = new byte[64];
+
+    /**
+     * Scans the given stream. The stream is not closed.
+     * @param in
+     */
+    public TokenScanner(InputStream in) {
+        if (null == in) {
+            throw new java.lang.NullPointerException();
+        }
+        this.in = in;
+        this.ownsStream = false;
+        this.channel = null;
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    }
+
+    /**
+     * Scans the named file through a read-only memory mapping. A name that
+     * is not a file is looked up, as <tt>In</tt> does, as a classpath
+     * resource and then as a URL, and read as a stream; close() closes it.
+     * @param name a file name, classpath resource or URL
+     */
+    public TokenScanner(String name) {
+        if (null == name) {
+            throw new java.lang.NullPointerException();
+        }
+        Path path = null;
+        try {
+            path = Paths.get(name);
+        } catch (InvalidPathException e) {
+            // not a file name on this platform, e.g. a URL on Windows
+        }
+        try {
+            if (null != path && Files.isRegularFile(path)) {
+                this.channel = FileChannel.open(path, StandardOpenOption.READ);
+                this.in = null;
+            } else {
+                URL url = TokenScanner.class.getResource(name);
+                if (null == url) {
+                    url = new URL(name);
+                }
+                this.channel = null;
+                this.in = url.openStream();
+                this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("could not open " + name, e);
+        }
+        this.ownsStream = null != in;
+    }
+
+    /**
+     * is there another token?
+     * @return
+     */
+    public boolean hasNext() {
+        return skipWhitespace();
+    }
+
+    /**
+     * read and return the next token.
+     * @return
+     */
+    public String next() {
+        int length = readToken();
+        return new String(token, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * read the next token as an int, in decimal with an optional sign.
+     * @return
+     */
+    public int nextInt() {
+        int length = readToken();
+        int i = 0;
+        boolean negative = false;
+        if (token[0] == '-' || token[0] == '+') {
+            negative = token[0] == '-';
+            i++;
+        }
+        if (i == length) {
+            throw mismatch("an 'int'", length);
+        }
+        long value = 0;
+        for (; i < length; i++) {
+            int digit = token[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw mismatch("an 'int'", length);
+            }
+            value = 10 * value + digit;
+            if (value > Integer.MAX_VALUE + 1L) {
+                throw mismatch("an 'int'", length);
+            }
+        }
+        if (negative) {
+            value = -value;
+        }
+        if (value > Integer.MAX_VALUE) {
+            throw mismatch("an 'int'", length);
+        }
+        return (int) value;
+    }
+
+    /**
+     * read the next token as a double.
+     * @return
+     */
+    public double nextDouble() {
+        int length = readToken();
+        int i = 0;
+        boolean negative = false;
+        if (token[0] == '-' || token[0] == '+') {
+            negative = token[0] == '-';
+            i++;
+        }
+        long significand = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean any = false;
+        for (; i < length && isDigit(token[i]); i++) {
+            any = true;
+            if (significand != 0 || token[i] != '0') {
+                if (++digits <= 15) {
+                    significand = 10 * significand + (token[i] - '0');
+                } else {
+                    scale++;
+                }
+            }
+        }
+        if (i < length && token[i] == '.') {
+            for (i++; i < length && isDigit(token[i]); i++) {
+                any = true;
+                if (significand != 0 || token[i] != '0') {
+                    if (++digits <= 15) {
+                        significand = 10 * significand + (token[i] - '0');
+                        scale--;
+                    }
+                } else {
+                    scale--;
+                }
+            }
+        }
+        if (any && i < length && (token[i] == 'e' || token[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < length && (token[i] == '-' || token[i] == '+')) {
+                negativeExponent = token[i] == '-';
+                i++;
+            }
+            int exponent = 0;
+            int start = i;
+            for (; i < length && isDigit(token[i]) && exponent < 10000; i++) {
+                exponent = 10 * exponent + (token[i] - '0');
+            }
+            if (i == start) {
+                any = false;
+            }
+            scale += negativeExponent ? -exponent : exponent;
+        }
+        if (any && i == length && digits <= 15) {
+            if (significand == 0) {
+                return negative ? -0.0 : 0.0;
+            }
+            if (scale >= -22 && scale <= 22) {
+                double value = scale >= 0 ? significand * POW10[scale]
+                                          : significand / POW10[-scale];
+                return negative ? -value : value;
+            }
+        }
+        try {
+            return Double.parseDouble(new String(token, 0, length, StandardCharsets.UTF_8));
+        } catch (NumberFormatException e) {
+            throw mismatch("a 'double'", length);
+        }
+    }
+
+    /**
+     * discard up to n tokens without decoding them.
+     * @param n
+     * @return the number of tokens skipped; less than n only at the end
+     *         of the input
+     */
+    public long skip(long n) {
+        long skipped = 0;
+        while (skipped < n && skipWhitespace()) {
+            // consume the token's bytes a buffer at a time
+            while (true) {
+                while (position < limit && !isWhitespace(buffer.get(position))) {
+                    position++;
+                }
+                if (position < limit || !fill()) {
+                    break;
+                }
+            }
+            skipped++;
+        }
+        return skipped;
+    }
+
+    /**
+     * Closes the mapped file, or the stream this scanner opened for a
+     * resource or URL. A stream passed in is left open.
+     */
+    public void close() {
+        try {
+            if (null != channel) {
+                channel.close();
+            } else if (ownsStream) {
+                in.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Copies the next token's bytes into token.
+     * @return its length
+     */
+    private int readToken() {
+        if (!skipWhitespace()) {
+            throw new java.util.NoSuchElementException();
+        }
+        int length = 0;
+        while (true) {
+            while (position < limit) {
+                byte b = buffer.get(position);
+                if (isWhitespace(b)) {
+                    return length;
+                }
+                if (length == token.length) {
+                    token = java.util.Arrays.copyOf(token, 2 * length);
+                }
+                token[length++] = b;
+                position++;
+            }
+            if (!fill()) {
+                return length;
+            }
+        }
+    }
+
+    /**
+     * Advances past whitespace.
+     * @return true if a token byte follows
+     */
+    private boolean skipWhitespace() {
+        while (true) {
+            while (position < limit && isWhitespace(buffer.get(position))) {
+                position++;
+            }
+            if (position < limit) {
+                return true;
+            }
+            if (!fill()) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Refills the buffer from the stream, or maps the next file window.
+     * @return false at end of input
+     */
+    private boolean fill() {
+        if (exhausted) {
+            return false;
+        }
+        try {
+            int read;
+            if (null != channel) {
+                long remaining = channel.size() - mapped;
+                read = (int) Math.min(WINDOW_SIZE, Math.max(remaining, 0));
+                if (read > 0) {
+                    buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapped, read);
+                    mapped += read;
+                }
+            } else {
+                do {
+                    read = in.read(buffer.array(), 0, buffer.capacity());
+                } while (read == 0);
+            }
+            position = 0;
+            limit = Math.max(read, 0);
+            exhausted = read <= 0;
+            return !exhausted;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private InputMismatchException mismatch(String type, int length) {
+        return new InputMismatchException("attempts to read " + type
+                + " value from the input, but the next token is \""
+                + new String(token, 0, length, StandardCharsets.UTF_8) + "\"");
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || (b >= '\t' && b <= '\r') || (b >= 0x1c && b <= 0x1f);
+    }
+}
@@ -0,0 +1,53 @@
+import edu.princeton.cs.algs4.WeightedQuickUnionUF;
+/**
+ * The <tt>Algs4UnionFind</tt> class adapts the algs4
+ * <tt>WeightedQuickUnionUF</tt> to the <tt>UnionFind</tt> interface. It is
+ * kept as the reference backend to compare <tt>GridUnionFind</tt> against.
+ * It cannot undo unions, so it is not a <tt>RollbackUnionFind</tt>.
+ */
+public class Algs4UnionFind implements UnionFind {
+    /** The wrapped union-find. **/
+    private WeightedQuickUnionUF uf;
+
+    /** Number of elements. **/
+    private int size;
+
+    /**
+     * Constructor.
+     * @param n number of elements
+     */
+    public Algs4UnionFind(int n) {
+        uf = new WeightedQuickUnionUF(n);
+        size = n;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int find(int p) {
+        return uf.find(p);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int union(int p, int q) {
+        uf.union(p, q);
+        return uf.find(p);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean connected(int p, int q) {
+        return uf.connected(p, q);
+    }
+
+    /**
+     * Two int arrays, <tt>parent[]</tt> and <tt>size[]</tt>.
+     * @return bytes
+     */
+    public long memoryBytes() {
+        return 8L * size;
+    }
+}
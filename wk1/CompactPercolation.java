@@ -0,0 +1,223 @@
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+/**
+ * The <tt>CompactPercolation</tt> class is a backwash-free percolation engine
+ * built on a single union-find of exactly N^2 sites. Instead of virtual top
+ * and bottom nodes (and the second union-find <tt>Percolation</tt> needs to
+ * avoid backwash) it keeps a status byte per site. Only the byte of a
+ * component root is meaningful for the TOP/BOTTOM bits: they record whether
+ * the component touches the top or bottom row, and are OR-ed together
+ * whenever two components are merged.
+ * <p>
+ * A site is full when it is open and its root has the TOP bit. The system
+ * percolates once any component has both bits, which we latch in a flag.
+ * <p>
+ * By default the union-find is a <tt>GridUnionFind</tt>, so the whole engine
+ * costs 5 bytes per site.
+ * <p>
+ * NOTE: API follows a 1,N element convention, not 0,N-1.
+ * <p>
+ * Reference:
+ * http://coursera.cs.princeton.edu/algs4/assignments/percolation.html
+ */
+public class CompactPercolation implements PercolationSystem {
+    /** Status bit: the site is open. **/
+    private static final byte OPEN = 1;
+
+    /** Status bit: the component touches the top row. **/
+    private static final byte TOP = 2;
+
+    /** Status bit: the component touches the bottom row. **/
+    private static final byte BOTTOM = 4;
+
+    /** Data structure for tracking Union-Finds over N^2 sites. **/
+    private UnionFind uf;
+
+    /** Status bits per site (N^2). **/
+    private byte[] status;
+
+    /** The size of the matrix. **/
+    private int matrixSize;
+
+    /** Latched once a component touches both top and bottom. **/
+    private boolean percolates;
+
+    /**
+    * Constructor for the CompactPercolation class.
+    * @param dimension NxN matrix size
+    */
+    public CompactPercolation(int dimension) {
+        this(dimension, UnionFind.Backend.GRID);
+    }
+
+    /**
+    * Constructor for the CompactPercolation class on a chosen union-find
+    * backend.
+    * @param dimension NxN matrix size
+    * @param backend the union-find implementation to use
+    */
+    public CompactPercolation(int dimension, UnionFind.Backend backend) {
+        if (dimension <= 0) {
+            throw new IllegalArgumentException("Dimensions must be positive.");
+        }
+        if ((long) dimension * dimension > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Dimensions too large.");
+        }
+        matrixSize = dimension;
+        uf = backend.create(dimension * dimension);
+        status = new byte[dimension * dimension];
+    }
+
+    /**
+     * Open a site at coordinates (i,j). Connects to all open adjacent sites
+     * and merges their status bits into the new root.
+     * @param i starts at 1
+     * @param j starts at 1
+     */
+    public void open(int i, int j) {
+        if (isOpen(i, j)) {
+            return;
+        }
+        int location = xyTo1D(i, j);
+        int bits = OPEN;
+        if (i == 1) {
+            bits |= TOP;
+        }
+        if (i == matrixSize) {
+            bits |= BOTTOM;
+        }
+        status[location] = (byte) bits;
+
+        if (j < matrixSize) {
+            bits |= connect(location, location + 1);
+        }
+        if (j > 1) {
+            bits |= connect(location, location - 1);
+        }
+        if (i < matrixSize) {
+            bits |= connect(location, location + matrixSize);
+        }
+        if (i > 1) {
+            bits |= connect(location, location - matrixSize);
+        }
+        int root = uf.find(location);
+        status[root] |= bits;
+        if ((bits & (TOP | BOTTOM)) == (TOP | BOTTOM)) {
+            percolates = true;
+        }
+    }
+
+    /**
+     * Tests to see if a site is open.
+     * @param i row number (1,N)
+     * @param j column number (1,N)
+     * @return boolean
+     */
+    public boolean isOpen(int i, int j) {
+        validateXY(i, j);
+        return (status[xyTo1D(i, j)] & OPEN) != 0;
+    }
+
+    /**
+     * Tests for a full site, which is an open site whose component touches
+     * the top row.
+     * @param i row number (1,N)
+     * @param j column number (1,N)
+     * @return boolean
+     */
+    public boolean isFull(int i, int j) {
+        validateXY(i, j);
+        int location = xyTo1D(i, j);
+        if ((status[location] & OPEN) == 0) {
+            return false;
+        }
+        return (status[uf.find(location)] & TOP) != 0;
+    }
+
+    /**
+     * Check if any component spans top to bottom.
+     * @return boolean
+     */
+    public boolean percolates() {
+        return percolates;
+    }
+
+    /**
+     * Reports the memory held by this system per grid site: the union-find
+     * arrays plus the status bytes. Array payloads only.
+     * @return bytes per site
+     */
+    public double bytesPerSite() {
+        long bytes = uf.memoryBytes() + status.length;
+        return bytes / ((double) matrixSize * matrixSize);
+    }
+
+    /**
+    * Converts (i,j) to a 0-based 1-D matrix index.
+    * @param i the row value (1,N)
+    * @param j the column value (1,N)
+    * @return the matrix index
+    */
+    private int xyTo1D(int i, int j) {
+        return (i - 1) * matrixSize + (j - 1);
+    }
+
+    /**
+    * Validates a coordinate, (i,j).
+    * @param i the row value (1,N)
+    * @param j the column value (1,N)
+    */
+    private void validateXY(int i, int j) {
+        if ((i <= 0 || i > matrixSize) || (j <= 0 || j > matrixSize)) {
+            throw new IndexOutOfBoundsException("Illegal matrix value.");
+        }
+    }
+
+    /**
+    * Connect adjacent site if open.
+    * @param location current location in matrix
+    * @param adjacent location of adjacent site in matrix
+    * @return the status bits of the adjacent component (0 if blocked)
+    */
+    private int connect(int location, int adjacent) {
+        if ((status[adjacent] & OPEN) == 0) {
+            return 0;
+        }
+        int bits = status[uf.find(adjacent)];
+        uf.union(location, adjacent);
+        return bits;
+    }
+
+    /**
+     * Test client. Opens random sites in both engines and checks that they
+     * agree on every query.
+     * @param args command line arguments
+     */
+    public static void main(String[] args) {
+        int n = 50;
+        if (args.length > 0) {
+            n = Integer.parseInt(args[0]);
+        }
+        Percolation classic = new Percolation(n);
+        CompactPercolation compact = new CompactPercolation(n);
+        int mismatches = 0;
+        for (int k = 0; k < n * n; k++) {
+            int i = StdRandom.uniform(1, n + 1);
+            int j = StdRandom.uniform(1, n + 1);
+            classic.open(i, j);
+            compact.open(i, j);
+            if (classic.percolates() != compact.percolates()) {
+                mismatches++;
+            }
+        }
+        for (int i = 1; i <= n; i++) {
+            for (int j = 1; j <= n; j++) {
+                if (classic.isOpen(i, j) != compact.isOpen(i, j)
+                        || classic.isFull(i, j) != compact.isFull(i, j)) {
+                    mismatches++;
+                }
+            }
+        }
+        StdOut.println("N=" + n + " mismatches=" + mismatches);
+    }
+}
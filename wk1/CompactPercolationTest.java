@@ -0,0 +1,90 @@
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import edu.princeton.cs.algs4.StdRandom;
+
+/**
+ * Checks that <tt>CompactPercolation</tt> behaves exactly like
+ * <tt>Percolation</tt>.
+ */
+public class CompactPercolationTest {
+
+    /**
+     * Test method for {@link CompactPercolation#isFull(int, int)}: the
+     * bottom-row site must not fill through the virtual bottom (backwash).
+     */
+    @Test
+    public void testNoBackwash() {
+        CompactPercolation p = new CompactPercolation(3);
+        p.open(1, 1);
+        p.open(2, 1);
+        p.open(3, 1);
+        p.open(3, 3);
+        assertTrue(p.percolates());
+        assertTrue(p.isFull(3, 1));
+        assertFalse(p.isFull(3, 3));
+    }
+
+    /**
+     * Test method for {@link CompactPercolation#percolates()}.
+     */
+    @Test
+    public void testSingleSite() {
+        CompactPercolation p = new CompactPercolation(1);
+        assertFalse(p.percolates());
+        assertFalse(p.isFull(1, 1));
+        p.open(1, 1);
+        assertTrue(p.percolates());
+        assertTrue(p.isFull(1, 1));
+    }
+
+    /**
+     * Random opens on both engines must agree on every query.
+     */
+    @Test
+    public void testMatchesPercolation() {
+        int n = 40;
+        StdRandom.setSeed(7);
+        Percolation classic = new Percolation(n);
+        CompactPercolation compact = new CompactPercolation(n);
+        for (int k = 0; k < n * n; k++) {
+            int i = StdRandom.uniform(1, n + 1);
+            int j = StdRandom.uniform(1, n + 1);
+            classic.open(i, j);
+            compact.open(i, j);
+            assertEquals(classic.percolates(), compact.percolates());
+        }
+        for (int i = 1; i <= n; i++) {
+            for (int j = 1; j <= n; j++) {
+                assertEquals(classic.isOpen(i, j), compact.isOpen(i, j));
+                assertEquals(classic.isFull(i, j), compact.isFull(i, j));
+            }
+        }
+    }
+
+    /**
+     * Test method for {@link CompactPercolation#open(int, int)} bounds.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testOpenOutOfBounds() {
+        new CompactPercolation(10).open(0, 5);
+    }
+
+    /**
+     * Test method for {@link CompactPercolation#CompactPercolation(int)}.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalDimension() {
+        new CompactPercolation(-1);
+    }
+
+    /**
+     * Test method for {@link CompactPercolation#CompactPercolation(int)}:
+     * N^2 must fit in an int.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testDimensionTooLarge() {
+        new CompactPercolation(46341);
+    }
+}
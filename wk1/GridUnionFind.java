@@ -0,0 +1,215 @@
+import java.util.Arrays;
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+import edu.princeton.cs.algs4.Stopwatch;
+import edu.princeton.cs.algs4.WeightedQuickUnionUF;
+/**
+ * The <tt>GridUnionFind</tt> class is a union-find specialized for the
+ * percolation grids. Parent links and ranks share one <tt>int[]</tt>: a
+ * non-negative entry is the parent of the element, a negative entry marks a
+ * root and stores -(rank + 1). Finds use path halving and unions link by
+ * rank, so one array (4 bytes per site) does the work of
+ * <tt>WeightedQuickUnionUF</tt>'s <tt>parent[]</tt> and <tt>size[]</tt>.
+ * <p>
+ * Snapshots are a journal: while one is held every write to the array is
+ * logged as an (index, old value) pair, and <tt>rollback()</tt> replays the
+ * log backwards. Path halving is suspended meanwhile so only unions write,
+ * at most one link plus one rank per union; union by rank alone keeps the
+ * trees O(log N) deep.
+ * <p>
+ * NOTE: indices are not validated; this sits on the <tt>open()</tt> hot path
+ * and callers compute the indices themselves.
+ */
+public class GridUnionFind implements RollbackUnionFind {
+    /** Parent link, or -(rank + 1) for a root (4N). **/
+    private int[] id;
+
+    /** (index, old value) pairs written since the snapshot. **/
+    private int[] journal;
+
+    /** Number of ints used in <tt>journal</tt>. **/
+    private int journalSize;
+
+    /** Is a snapshot held? **/
+    private boolean journaling;
+
+    /**
+     * Constructor. Every element starts as a rank-0 root.
+     * @param n number of elements
+     */
+    public GridUnionFind(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("Size must be non-negative.");
+        }
+        id = new int[n];
+        Arrays.fill(id, -1);
+    }
+
+    /**
+     * Returns the root of the set containing p, halving the path on the way.
+     * @param p the element
+     * @return root of p's set
+     */
+    public int find(int p) {
+        int[] a = id;
+        if (journaling) {
+            while (a[p] >= 0) {
+                p = a[p];
+            }
+            return p;
+        }
+        while (true) {
+            int parent = a[p];
+            if (parent < 0) {
+                return p;
+            }
+            int grand = a[parent];
+            if (grand < 0) {
+                return parent;
+            }
+            a[p] = grand;
+            p = grand;
+        }
+    }
+
+    /**
+     * Merges the sets containing p and q, linking the lower-rank root under
+     * the higher-rank one.
+     * @param p an element
+     * @param q an element
+     * @return root of the merged set
+     */
+    public int union(int p, int q) {
+        int rootP = find(p);
+        int rootQ = find(q);
+        if (rootP == rootQ) {
+            return rootP;
+        }
+        int[] a = id;
+        // roots hold -(rank + 1): the smaller value has the higher rank
+        if (a[rootP] > a[rootQ]) {
+            set(rootP, rootQ);
+            return rootQ;
+        }
+        if (a[rootP] == a[rootQ]) {
+            set(rootP, a[rootP] - 1);
+        }
+        set(rootQ, rootP);
+        return rootP;
+    }
+
+    /**
+     * The packed array plus the snapshot journal, if any.
+     * @return bytes
+     */
+    public long memoryBytes() {
+        long bytes = 4L * id.length;
+        if (journal != null) {
+            bytes += 4L * journal.length;
+        }
+        return bytes;
+    }
+
+    /**
+     * Records the current state; later unions can be undone with
+     * {@link #rollback()}.
+     */
+    public void snapshot() {
+        if (journal == null) {
+            journal = new int[64];
+        }
+        journalSize = 0;
+        journaling = true;
+    }
+
+    /**
+     * Undoes every union since the last {@link #snapshot()}.
+     */
+    public void rollback() {
+        if (!journaling) {
+            throw new IllegalStateException("No snapshot to roll back to.");
+        }
+        for (int k = journalSize - 2; k >= 0; k -= 2) {
+            id[journal[k]] = journal[k + 1];
+        }
+        journalSize = 0;
+    }
+
+    /**
+     * Drops the snapshot and resumes path halving.
+     */
+    public void releaseSnapshot() {
+        journaling = false;
+        journalSize = 0;
+    }
+
+    /**
+     * Writes an array entry, journaling the old value if a snapshot is held.
+     * @param index the entry
+     * @param value the new value
+     */
+    private void set(int index, int value) {
+        if (journaling) {
+            if (journalSize + 2 > journal.length) {
+                journal = Arrays.copyOf(journal, 2 * journal.length);
+            }
+            journal[journalSize++] = index;
+            journal[journalSize++] = id[index];
+        }
+        id[index] = value;
+    }
+
+    /**
+     * Are p and q in the same set?
+     * @param p an element
+     * @param q an element
+     * @return boolean
+     */
+    public boolean connected(int p, int q) {
+        return find(p) == find(q);
+    }
+
+    /**
+     * Throughput comparison against <tt>WeightedQuickUnionUF</tt>.
+     * @param args number of elements, number of unions
+     */
+    public static void main(String[] args) {
+        int n = 1000000;
+        int m = 4000000;
+        if (args.length > 1) {
+            n = Integer.parseInt(args[0]);
+            m = Integer.parseInt(args[1]);
+        }
+        int[] ps = new int[m];
+        int[] qs = new int[m];
+        for (int k = 0; k < m; k++) {
+            ps[k] = StdRandom.uniform(n);
+            qs[k] = StdRandom.uniform(n);
+        }
+        for (UnionFind.Backend backend : UnionFind.Backend.values()) {
+            Stopwatch timer = new Stopwatch();
+            UnionFind uf = backend.create(n);
+            for (int k = 0; k < m; k++) {
+                uf.union(ps[k], qs[k]);
+            }
+            StdOut.println(backend + "\tN=" + n + "\tM=" + m + "\t"
+                    + timer.elapsedTime() + " seconds");
+        }
+
+        // agreement check against the algs4 implementation
+        WeightedQuickUnionUF reference = new WeightedQuickUnionUF(1000);
+        GridUnionFind grid = new GridUnionFind(1000);
+        int mismatches = 0;
+        for (int k = 0; k < 2000; k++) {
+            int p = StdRandom.uniform(1000);
+            int q = StdRandom.uniform(1000);
+            if (reference.connected(p, q) != grid.connected(p, q)) {
+                mismatches++;
+            }
+            reference.union(p, q);
+            grid.union(p, q);
+        }
+        StdOut.println("mismatches=" + mismatches);
+    }
+}
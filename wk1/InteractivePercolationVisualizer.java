@@ -8,6 +8,7 @@
  *  Then, the user repeatedly clicks sites to open with the mouse.
  *  After each site is opened, it draws full sites in light blue,
  *  open sites (that aren't full) in white, and blocked sites in black.
+ *  Only the sites each click changed are repainted.
  *
  ******************************************************************************/
 
@@ -27,6 +28,9 @@ public class InteractivePercolationVisualizer {
         StdDraw.show(0);
         Percolation perc = new Percolation(N);
         PercolationVisualizer.draw(perc, N);
+        PercolationVisualizer.SiteRepainter repainter =
+            new PercolationVisualizer.SiteRepainter(perc, N);
+        perc.setSiteListener(repainter);
         StdDraw.show(0);
 
         while (true) {
@@ -50,9 +54,9 @@ public class InteractivePercolationVisualizer {
                     perc.open(i, j);
                 }
 
-                // draw N-by-N percolation system
+                // draw the sites that changed
                 StdDraw.show(0);
-                PercolationVisualizer.draw(perc, N);
+                PercolationVisualizer.drawStatus(perc, N, repainter.opened());
             }
             StdDraw.show(20);
         }
@@ -0,0 +1,186 @@
+/**
+ * The <tt>Lattice</tt> class describes the grid a <tt>LatticePercolation</tt>
+ * runs on: the extent of each dimension and the neighbourhood as a list of
+ * coordinate offsets. The first dimension is the one percolation runs along:
+ * its first layer is the "top" and its last layer the "bottom".
+ * <p>
+ * Every offset component must be -1, 0 or 1, so the engine can surround the
+ * grid with a one-site border of blocked sites instead of bounds-checking.
+ * <p>
+ * Factory methods cover the usual studies; any other neighbourhood can be
+ * passed to the constructor.
+ */
+public class Lattice {
+    /** Name used in reports. **/
+    private final String name;
+
+    /** Extent of each dimension. **/
+    private final int[] extents;
+
+    /** Neighbour offsets, one coordinate vector per neighbour. **/
+    private final int[][] neighbours;
+
+    /**
+     * Constructor.
+     * @param name name used in reports
+     * @param extents extent of each dimension (all positive)
+     * @param neighbours neighbour offsets, each of length extents.length
+     *                   with components in {-1, 0, 1}
+     */
+    public Lattice(String name, int[] extents, int[][] neighbours) {
+        if (extents.length == 0) {
+            throw new IllegalArgumentException("Need at least one dimension.");
+        }
+        for (int extent : extents) {
+            if (extent <= 0) {
+                throw new IllegalArgumentException("Dimensions must be positive.");
+            }
+        }
+        for (int[] offset : neighbours) {
+            if (offset.length != extents.length) {
+                throw new IllegalArgumentException("Offset has wrong dimension.");
+            }
+            boolean zero = true;
+            for (int d : offset) {
+                if (d < -1 || d > 1) {
+                    throw new IllegalArgumentException("Offsets must be -1, 0 or 1.");
+                }
+                zero &= d == 0;
+            }
+            if (zero) {
+                throw new IllegalArgumentException("Zero offset.");
+            }
+        }
+        this.name = name;
+        this.extents = extents.clone();
+        this.neighbours = new int[neighbours.length][];
+        for (int k = 0; k < neighbours.length; k++) {
+            this.neighbours[k] = neighbours[k].clone();
+        }
+    }
+
+    /**
+     * NxN square lattice, four neighbours (the <tt>Percolation</tt> grid).
+     * @param n the side length
+     * @return the lattice
+     */
+    public static Lattice square(int n) {
+        return new Lattice("square", new int[] {n, n},
+            new int[][] {{-1, 0}, {1, 0}, {0, -1}, {0, 1}});
+    }
+
+    /**
+     * NxN square lattice, eight neighbours (diagonals included).
+     * @param n the side length
+     * @return the lattice
+     */
+    public static Lattice moore(int n) {
+        return new Lattice("moore", new int[] {n, n},
+            new int[][] {{-1, -1}, {-1, 0}, {-1, 1}, {0, -1},
+                         {0, 1}, {1, -1}, {1, 0}, {1, 1}});
+    }
+
+    /**
+     * NxN lattice of hexagonal cells (six neighbours) in axial coordinates,
+     * i.e. a rhombus-shaped patch of the triangular lattice.
+     * @param n the side length
+     * @return the lattice
+     */
+    public static Lattice hexagonal(int n) {
+        return new Lattice("hexagonal", new int[] {n, n},
+            new int[][] {{-1, 0}, {1, 0}, {0, -1}, {0, 1}, {-1, 1}, {1, -1}});
+    }
+
+    /**
+     * NxNxN simple cubic lattice, six neighbours.
+     * @param n the side length
+     * @return the lattice
+     */
+    public static Lattice cubic(int n) {
+        return new Lattice("cubic", new int[] {n, n, n},
+            new int[][] {{-1, 0, 0}, {1, 0, 0}, {0, -1, 0},
+                         {0, 1, 0}, {0, 0, -1}, {0, 0, 1}});
+    }
+
+    /**
+     * Looks a lattice up by factory name.
+     * @param kind square, moore, hexagonal or cubic
+     * @param n the side length
+     * @return the lattice
+     */
+    public static Lattice of(String kind, int n) {
+        if ("square".equals(kind)) {
+            return square(n);
+        } else if ("moore".equals(kind)) {
+            return moore(n);
+        } else if ("hexagonal".equals(kind)) {
+            return hexagonal(n);
+        } else if ("cubic".equals(kind)) {
+            return cubic(n);
+        }
+        throw new IllegalArgumentException("Unknown lattice: " + kind);
+    }
+
+    /**
+     * @return name used in reports
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * @return number of dimensions
+     */
+    public int dimensions() {
+        return extents.length;
+    }
+
+    /**
+     * @param d the dimension
+     * @return extent of dimension d
+     */
+    public int extent(int d) {
+        return extents[d];
+    }
+
+    /**
+     * @return number of neighbours of a site
+     */
+    public int neighbourCount() {
+        return neighbours.length;
+    }
+
+    /**
+     * @param k the neighbour
+     * @param d the dimension
+     * @return component d of neighbour offset k
+     */
+    public int offset(int k, int d) {
+        return neighbours[k][d];
+    }
+
+    /**
+     * @return number of sites
+     */
+    public long sites() {
+        long sites = 1;
+        for (int extent : extents) {
+            sites *= extent;
+        }
+        return sites;
+    }
+
+    /**
+     * @return e.g. "cubic 10x10x10"
+     */
+    public String toString() {
+        StringBuilder sb = new StringBuilder(name).append(' ');
+        for (int d = 0; d < extents.length; d++) {
+            if (d > 0) {
+                sb.append('x');
+            }
+            sb.append(extents[d]);
+        }
+        return sb.toString();
+    }
+}
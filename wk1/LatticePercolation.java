@@ -0,0 +1,243 @@
+import java.util.SplittableRandom;
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.Stopwatch;
+/**
+ * The <tt>LatticePercolation</tt> class is a percolation engine for any
+ * <tt>Lattice</tt>: square, eight-neighbour, hexagonal, cubic or a custom
+ * neighbourhood in any number of dimensions. Percolation runs along the
+ * first dimension, from its first layer (top) to its last (bottom).
+ * <p>
+ * Sites are flattened row-major into a grid padded with one layer of
+ * permanently blocked sites on every side. Each neighbour offset is then a
+ * single precomputed index delta, and the <tt>open()</tt> loop adds the
+ * deltas with no bounds checks and no branching on lattice type. As in
+ * <tt>CompactPercolation</tt>, a status byte per site (OPEN, and TOP/BOTTOM
+ * on component roots) over one <tt>GridUnionFind</tt> answers
+ * <tt>isFull()</tt> and <tt>percolates()</tt> without backwash.
+ * <p>
+ * NOTE: sites are addressed by 0-based row-major index over the unpadded
+ * lattice; {@link #index(int...)} converts 1-based coordinates.
+ * <p>
+ * To run: java LatticePercolation <square|moore|hexagonal|cubic> <N> <T>
+ *                                 [seed]
+ */
+public class LatticePercolation {
+    /** Status bit: the site is open. **/
+    private static final byte OPEN = 1;
+
+    /** Status bit: the component touches the top layer. **/
+    private static final byte TOP = 2;
+
+    /** Status bit: the component touches the bottom layer. **/
+    private static final byte BOTTOM = 4;
+
+    /** The lattice. **/
+    private final Lattice lattice;
+
+    /** Extent of each dimension. **/
+    private final int[] extents;
+
+    /** Padded row-major stride of each dimension. **/
+    private final int[] strides;
+
+    /** Index delta of each neighbour in the padded grid. **/
+    private final int[] offsets;
+
+    /** Number of (unpadded) sites. **/
+    private final int sites;
+
+    /** Number of sites in one layer of the first dimension. **/
+    private final int layerSize;
+
+    /** Union-find over the padded grid. **/
+    private final UnionFind uf;
+
+    /** Status bits per padded site. **/
+    private final byte[] status;
+
+    /** Latched once a component touches both top and bottom. **/
+    private boolean percolates;
+
+    /**
+     * Constructor. All sites start blocked.
+     * @param lattice the lattice to percolate on
+     */
+    public LatticePercolation(Lattice lattice) {
+        this.lattice = lattice;
+        int dims = lattice.dimensions();
+        extents = new int[dims];
+        strides = new int[dims];
+        long padded = 1;
+        for (int d = dims - 1; d >= 0; d--) {
+            extents[d] = lattice.extent(d);
+            strides[d] = (int) padded;
+            padded *= extents[d] + 2;
+            if (padded > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Lattice too large.");
+            }
+        }
+        sites = (int) lattice.sites();
+        layerSize = sites / extents[0];
+        offsets = new int[lattice.neighbourCount()];
+        for (int k = 0; k < offsets.length; k++) {
+            for (int d = 0; d < dims; d++) {
+                offsets[k] += lattice.offset(k, d) * strides[d];
+            }
+        }
+        uf = new GridUnionFind((int) padded);
+        status = new byte[(int) padded];
+    }
+
+    /**
+     * Converts 1-based coordinates to a site index.
+     * @param coords one coordinate per dimension, each in (1, extent)
+     * @return the 0-based row-major site index
+     */
+    public int index(int... coords) {
+        if (coords.length != extents.length) {
+            throw new IllegalArgumentException("Wrong number of coordinates.");
+        }
+        int site = 0;
+        for (int d = 0; d < extents.length; d++) {
+            if (coords[d] <= 0 || coords[d] > extents[d]) {
+                throw new IndexOutOfBoundsException("Illegal lattice value.");
+            }
+            site = site * extents[d] + coords[d] - 1;
+        }
+        return site;
+    }
+
+    /**
+     * Opens a site and connects it to its open neighbours.
+     * @param site the 0-based site index
+     */
+    public void open(int site) {
+        int location = padded(site);
+        if ((status[location] & OPEN) != 0) {
+            return;
+        }
+        int layer = site / layerSize;
+        int bits = OPEN;
+        if (layer == 0) {
+            bits |= TOP;
+        }
+        if (layer == extents[0] - 1) {
+            bits |= BOTTOM;
+        }
+        status[location] = (byte) bits;
+        for (int offset : offsets) {
+            int adjacent = location + offset;
+            if ((status[adjacent] & OPEN) != 0) {
+                bits |= status[uf.find(adjacent)];
+                uf.union(location, adjacent);
+            }
+        }
+        status[uf.find(location)] |= bits;
+        if ((bits & (TOP | BOTTOM)) == (TOP | BOTTOM)) {
+            percolates = true;
+        }
+    }
+
+    /**
+     * Tests to see if a site is open.
+     * @param site the 0-based site index
+     * @return boolean
+     */
+    public boolean isOpen(int site) {
+        return (status[padded(site)] & OPEN) != 0;
+    }
+
+    /**
+     * Tests for a full site: an open site whose component touches the top.
+     * @param site the 0-based site index
+     * @return boolean
+     */
+    public boolean isFull(int site) {
+        int location = padded(site);
+        if ((status[location] & OPEN) == 0) {
+            return false;
+        }
+        return (status[uf.find(location)] & TOP) != 0;
+    }
+
+    /**
+     * Check if any component spans top to bottom.
+     * @return boolean
+     */
+    public boolean percolates() {
+        return percolates;
+    }
+
+    /**
+     * @return number of sites in the lattice
+     */
+    public int sites() {
+        return sites;
+    }
+
+    /**
+     * @return the lattice
+     */
+    public Lattice lattice() {
+        return lattice;
+    }
+
+    /**
+     * Converts a site index to its index in the padded grid.
+     * @param site the 0-based site index
+     * @return the padded index
+     */
+    private int padded(int site) {
+        if (site < 0 || site >= sites) {
+            throw new IndexOutOfBoundsException("Illegal site index.");
+        }
+        int location = 0;
+        for (int d = extents.length - 1; d >= 0; d--) {
+            location += (site % extents[d] + 1) * strides[d];
+            site /= extents[d];
+        }
+        return location;
+    }
+
+    /**
+     * Estimates the site-percolation threshold of a lattice: T trials, each
+     * opening sites in shuffled order until the lattice percolates.
+     * @param args lattice kind, side length, trials, optional seed
+     */
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            throw new IllegalArgumentException(
+                "Enter a lattice (square, moore, hexagonal, cubic), N and T");
+        }
+        int n = Integer.parseInt(args[1]);
+        int trials = Integer.parseInt(args[2]);
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 0;
+        Lattice lattice = Lattice.of(args[0], n);
+
+        Stopwatch timer = new Stopwatch();
+        SplittableRandom random = new SplittableRandom(seed);
+        RunningStats stats = new RunningStats();
+        int[] order = new int[(int) lattice.sites()];
+        for (int t = 0; t < trials; t++) {
+            LatticePercolation percolation = new LatticePercolation(lattice);
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            int opened = 0;
+            while (!percolation.percolates()) {
+                int pick = opened + random.nextInt(order.length - opened);
+                int site = order[pick];
+                order[pick] = order[opened];
+                order[opened] = site;
+                percolation.open(site);
+                opened++;
+            }
+            stats.add(opened / (double) order.length);
+        }
+        StdOut.println(lattice + ", " + trials + " trials");
+        StdOut.println("mean \t\t\t= " + stats.mean());
+        StdOut.println("stddev \t\t\t= " + stats.stddev());
+        StdOut.println("elapsed \t\t= " + timer.elapsedTime() + " seconds");
+    }
+}
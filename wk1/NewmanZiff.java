@@ -0,0 +1,270 @@
+import java.util.SplittableRandom;
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.Stopwatch;
+/**
+ * The <tt>NewmanZiff</tt> class estimates whole site-percolation curves on
+ * the NxN grid with the Newman-Ziff algorithm. Each trial opens all N^2
+ * sites in a random order and, after every open, records whether the grid
+ * percolates and the size of the largest cluster. Averaging over trials
+ * gives these observables as a function of the number of open sites n
+ * (the "microcanonical" curves); the curve at any site probability p is
+ * then the binomial convolution
+ * <pre>
+ *     Q(p) = sum_n C(N^2, n) p^n (1-p)^(N^2-n) Q_n.
+ * </pre>
+ * So one sweep per trial, with the same union-find work that
+ * <tt>PercolationStats</tt> spends on a single threshold sample, yields
+ * P(p) and the largest-cluster fraction for every p.
+ * <p>
+ * Reference:
+ * M. E. J. Newman and R. M. Ziff, "Fast Monte Carlo algorithm for site or
+ * bond percolation", Phys. Rev. E 64, 016706 (2001).
+ * <p>
+ * To run: java NewmanZiff <matrix size> <number of trials> [seed]
+ */
+public class NewmanZiff {
+    /** Status bit: the site is open. **/
+    private static final byte OPEN = 1;
+
+    /** Status bit: the component touches the top row. **/
+    private static final byte TOP = 2;
+
+    /** Status bit: the component touches the bottom row. **/
+    private static final byte BOTTOM = 4;
+
+    /** Binomial weights below this fraction of the peak are dropped. **/
+    private static final double NEGLIGIBLE = 1e-16;
+
+    /** The size of the matrix. **/
+    private final int matrixSize;
+
+    /** Number of sites, N^2. **/
+    private final int sites;
+
+    /** Fraction of trials percolating after n opens, n = 0..N^2. **/
+    private final double[] percolating;
+
+    /** Mean largest-cluster fraction after n opens, n = 0..N^2. **/
+    private final double[] largest;
+
+    /**
+     * Constructor. Runs T full sweeps of an NxN grid.
+     * @param dimension the matrix size
+     * @param trials the number of trials
+     * @param seed the random seed
+     */
+    public NewmanZiff(int dimension, int trials, long seed) {
+        if (dimension <= 0 || trials <= 0) {
+            throw new IllegalArgumentException("Please use positive integers.");
+        }
+        matrixSize = dimension;
+        sites = dimension * dimension;
+        percolating = new double[sites + 1];
+        largest = new double[sites + 1];
+
+        long[] firstPercolation = new long[sites + 1];
+        long[] largestSum = new long[sites + 1];
+        int[] order = new int[sites];
+        int[] size = new int[sites];
+        byte[] status = new byte[sites];
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int t = 0; t < trials; t++) {
+            sweep(random, order, size, status, firstPercolation, largestSum);
+        }
+
+        long percolatingTrials = 0;
+        for (int n = 0; n <= sites; n++) {
+            percolatingTrials += firstPercolation[n];
+            percolating[n] = percolatingTrials / (double) trials;
+            largest[n] = largestSum[n] / ((double) trials * sites);
+        }
+    }
+
+    /**
+     * One trial: opens every site in a fresh random order, tracking cluster
+     * sizes and top/bottom bits on the component roots.
+     * @param random the random stream
+     * @param order scratch permutation buffer (N^2)
+     * @param size scratch cluster sizes, valid on roots (N^2)
+     * @param status scratch status bits (N^2)
+     * @param firstPercolation histogram of the open count at which each
+     *        trial first percolates
+     * @param largestSum running sum of the largest cluster size after each
+     *        open count
+     */
+    private void sweep(SplittableRandom random, int[] order, int[] size,
+                       byte[] status, long[] firstPercolation,
+                       long[] largestSum) {
+        UnionFind uf = new GridUnionFind(sites);
+        for (int i = 0; i < sites; i++) {
+            order[i] = i;
+            status[i] = 0;
+        }
+        boolean percolates = false;
+        int biggest = 0;
+        for (int n = 0; n < sites; n++) {
+            int pick = n + random.nextInt(sites - n);
+            int site = order[pick];
+            order[pick] = order[n];
+            order[n] = site;
+
+            int row = site / matrixSize;
+            int col = site % matrixSize;
+            int bits = OPEN;
+            if (row == 0) {
+                bits |= TOP;
+            }
+            if (row == matrixSize - 1) {
+                bits |= BOTTOM;
+            }
+            status[site] = (byte) bits;
+            size[site] = 1;
+            int root = site;
+            if (col > 0) {
+                root = merge(uf, size, status, root, site - 1);
+            }
+            if (col < matrixSize - 1) {
+                root = merge(uf, size, status, root, site + 1);
+            }
+            if (row > 0) {
+                root = merge(uf, size, status, root, site - matrixSize);
+            }
+            if (row < matrixSize - 1) {
+                root = merge(uf, size, status, root, site + matrixSize);
+            }
+            biggest = Math.max(biggest, size[root]);
+            largestSum[n + 1] += biggest;
+            if (!percolates && (status[root] & (TOP | BOTTOM)) == (TOP | BOTTOM)) {
+                percolates = true;
+                firstPercolation[n + 1]++;
+            }
+        }
+    }
+
+    /**
+     * Merges the cluster rooted at <tt>root</tt> with an adjacent site's
+     * cluster, if that site is open.
+     * @return root of the merged cluster
+     */
+    private static int merge(UnionFind uf, int[] size, byte[] status,
+                             int root, int adjacent) {
+        if ((status[adjacent] & OPEN) == 0) {
+            return root;
+        }
+        int other = uf.find(adjacent);
+        if (other == root) {
+            return root;
+        }
+        int merged = uf.union(root, other);
+        size[merged] = size[root] + size[other];
+        status[merged] = (byte) (status[root] | status[other]);
+        return merged;
+    }
+
+    /**
+     * Probability that the grid percolates when each site is open with
+     * probability p.
+     * @param p site probability in [0, 1]
+     * @return P(p)
+     */
+    public double percolationProbability(double p) {
+        return convolve(percolating, p);
+    }
+
+    /**
+     * Expected largest-cluster size, as a fraction of N^2, when each site is
+     * open with probability p.
+     * @param p site probability in [0, 1]
+     * @return largest-cluster fraction
+     */
+    public double largestClusterFraction(double p) {
+        return convolve(largest, p);
+    }
+
+    /**
+     * P(p) at every requested p.
+     * @param ps site probabilities in [0, 1]
+     * @return P(p) for each entry of ps
+     */
+    public double[] percolationCurve(double[] ps) {
+        double[] curve = new double[ps.length];
+        for (int k = 0; k < ps.length; k++) {
+            curve[k] = percolationProbability(ps[k]);
+        }
+        return curve;
+    }
+
+    /**
+     * Fraction of trials percolating with exactly n sites open: the
+     * microcanonical Q_n that <tt>percolationProbability(p)</tt> convolves.
+     * @param n number of open sites (0..N^2)
+     * @return Q_n
+     */
+    public double microcanonicalProbability(int n) {
+        return percolating[n];
+    }
+
+    /**
+     * Binomial convolution of a microcanonical curve. The weights are built
+     * outwards from the mode with the ratio
+     * B(n) / B(n-1) = (M-n+1)/n * p/(1-p), which never under- or overflows,
+     * stopping once they fall below <tt>NEGLIGIBLE</tt> of the peak.
+     * @param q the observable after n opens, n = 0..M
+     * @param p site probability
+     * @return the canonical value at p
+     */
+    private double convolve(double[] q, double p) {
+        if (p < 0 || p > 1 || Double.isNaN(p)) {
+            throw new IllegalArgumentException("p must be in [0, 1].");
+        }
+        if (p == 0) {
+            return q[0];
+        }
+        if (p == 1) {
+            return q[sites];
+        }
+        int mode = (int) Math.min(sites, Math.floor((sites + 1) * p));
+        double odds = p / (1 - p);
+        double total = 1;
+        double sum = q[mode];
+        double weight = 1;
+        for (int n = mode + 1; n <= sites && weight > NEGLIGIBLE; n++) {
+            weight *= (sites - n + 1) / (double) n * odds;
+            total += weight;
+            sum += weight * q[n];
+        }
+        weight = 1;
+        for (int n = mode; n > 0 && weight > NEGLIGIBLE; n--) {
+            weight *= n / ((sites - n + 1) * odds);
+            total += weight;
+            sum += weight * q[n - 1];
+        }
+        return sum / total;
+    }
+
+    /**
+     * Prints P(p) and the largest-cluster fraction for p = 0.50 .. 0.70.
+     * @param args matrix size, number of trials, optional seed
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            throw new IllegalArgumentException(
+                "Enter two positive integer values: N and T");
+        }
+        int n = Integer.parseInt(args[0]);
+        int trials = Integer.parseInt(args[1]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 0;
+
+        Stopwatch timer = new Stopwatch();
+        NewmanZiff curve = new NewmanZiff(n, trials, seed);
+        StdOut.println("p\tP(p)\t\tlargest cluster");
+        for (int k = 50; k <= 70; k++) {
+            double p = k / 100.0;
+            StdOut.printf("%.2f\t%.6f\t%.6f%n", p,
+                    curve.percolationProbability(p),
+                    curve.largestClusterFraction(p));
+        }
+        StdOut.println("elapsed = " + timer.elapsedTime() + " seconds");
+    }
+}
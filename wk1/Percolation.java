@@ -1,14 +1,24 @@
 import edu.princeton.cs.algs4.StdOut;
-import edu.princeton.cs.algs4.WeightedQuickUnionUF;
 /**
  * The <tt>Percolation</tt> class models the data structure for Percolation
- * system. This class uses the <tt>WeightedQuickUnionUF</tt> class to model the
- * state of an NxN matrix. We first flatten our NxN matrix into a N^2 array such
+ * system. This class uses a <tt>UnionFind</tt> (by default the algs4
+ * <tt>WeightedQuickUnionUF</tt>, optionally <tt>GridUnionFind</tt>) to model
+ * the state of an NxN matrix. We first flatten our NxN matrix into a N^2 array such
  * that "site" (i,j) is represented by array element N*(i-1) + j. We then extend
  * this data structure to include a pair of "virtual nodes" to represent the
- * bottom and top of the percolation grid. We also add a second array of the
- * same size to track whether a given site is open or blocked. We assign the
- * value of -1 for blocked values.
+ * bottom and top of the percolation grid. We also keep a bitset of the same
+ * size, packed 64 sites to a <tt>long</tt>, to track whether a given site is
+ * open or blocked; {@link #bytesPerSite()} reports the resulting footprint.
+ * <p>
+ * Sites can also be opened in batches by 0-based row-major index (see
+ * <tt>openAll</tt>). {@link RollbackPercolation} adds snapshots and
+ * rollback on a <tt>RollbackUnionFind</tt>, so a caller can open a large
+ * block, test <tt>percolates()</tt> once and undo the block if it overshot.
+ * <p>
+ * A {@link SiteListener} can follow the grid incrementally: each
+ * <tt>open()</tt> reports the opened site and every site that became full as
+ * a result, found by a flood fill over the open sites not yet full. Every
+ * site fills at most once, so the fills cost O(N^2) in total.
  * <p>
  * NOTE: API follows a 1,N element convention, not 0,N-1.
  * NOTE: The bottom row has the highest row index, N. The top row is row is 1.
@@ -18,12 +28,32 @@ import edu.princeton.cs.algs4.WeightedQuickUnionUF;
  * @author Andrew Lienhard.
  * January 25th, 2015.
  */
-public class Percolation {
+public class Percolation implements PercolationSystem {
+    /**
+     * Receives the sites changed by each <tt>open()</tt>.
+     */
+    public interface SiteListener {
+        /**
+         * A blocked site was opened.
+         * @param i row number (1,N)
+         * @param j column number (1,N)
+         */
+        void siteOpened(int i, int j);
+
+        /**
+         * An open site became full. Reported after <tt>siteOpened</tt> when
+         * the opened site itself fills.
+         * @param i row number (1,N)
+         * @param j column number (1,N)
+         */
+        void siteFilled(int i, int j);
+    }
+
     /** Data structure for tracking Union-Finds (8). **/
-    private WeightedQuickUnionUF uf;
+    private UnionFind uf;
 
-    /** Array of blocked sites (8+24+N). **/
-    private boolean[] openSites;
+    /** Bitset of open sites, 64 per word (8+24+N/8). **/
+    private long[] openSites;
 
     /** The size of the matrix (4). **/
     private int matrixSize;
@@ -31,20 +61,62 @@ public class Percolation {
     /** The number elements to track. N^2 + 2 because of virtual nodes (4). **/
     private int maxElements;
 
+    /** Receives site changes, or null. **/
+    private SiteListener listener;
+
+    /** Bitset of sites already reported full, while a listener is set. **/
+    private long[] fullSites;
+
+    /** Flood-fill work stack, while a listener is set. **/
+    private int[] fillStack;
+
     /**
     * Constructor for the Percolation class.
     * @param dimension NxN matrix size
     */
     public Percolation(int dimension) {
-        if (dimension <= 0) {
-            throw new IllegalArgumentException("Dimensions must be positive.");
-        }
+        this(dimension, UnionFind.Backend.ALGS4);
+    }
+
+    /**
+    * Constructor for the Percolation class on a chosen union-find backend.
+    * @param dimension NxN matrix size
+    * @param backend the union-find implementation to use
+    */
+    public Percolation(int dimension, UnionFind.Backend backend) {
+        this(dimension, backend.create(unionFindSize(dimension)));
+    }
+
+    /**
+    * Constructor for subclasses that supply the union-find themselves.
+    * @param dimension NxN matrix size
+    * @param unionFind union-find of {@link #unionFindSize(int)} elements
+    */
+    protected Percolation(int dimension, UnionFind unionFind) {
+        unionFindSize(dimension); // validates
         matrixSize = dimension; // input value
         maxElements = dimension * dimension + 2; // N^2 + 2 virtual nodes
-        uf = new WeightedQuickUnionUF(2 * maxElements);
+        uf = unionFind;
         initBlocked(); // init block tracking matrix
     }
 
+    /**
+     * The number of union-find elements an NxN system needs: two copies of
+     * the N^2 sites plus the virtual nodes (the second copy has no virtual
+     * bottom, which is what fixes backwash).
+     * @param dimension NxN matrix size
+     * @return 2(N^2 + 2)
+     */
+    protected static int unionFindSize(int dimension) {
+        if (dimension <= 0) {
+            throw new IllegalArgumentException("Dimensions must be positive.");
+        }
+        if (2L * ((long) dimension * dimension + 2) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Dimensions too large.");
+        }
+        return 2 * (dimension * dimension + 2);
+    }
+
     /**
      * Open a site at coordinates (i,j). Connects to all unblocked adjacent
      * sites.
@@ -55,9 +127,61 @@ public class Percolation {
         if (isOpen(i, j)) {
             return;
         }
+        openSite(i, j);
+    }
+
+    /**
+     * Opens a block of sites given as 0-based row-major indices, so site
+     * (i,j) is index N*(i-1) + (j-1). Sites already open are skipped.
+     * @param sites the site indices
+     * @param from first entry of <tt>sites</tt> to open (inclusive)
+     * @param to last entry of <tt>sites</tt> to open (exclusive)
+     */
+    public void openAll(int[] sites, int from, int to) {
+        int size = maxElements - 2;
+        for (int k = from; k < to; k++) {
+            int site = sites[k];
+            if (site < 0 || site >= size) {
+                throw new IndexOutOfBoundsException("Illegal site index.");
+            }
+            if (!isOpenSite(site + 1)) {
+                openSite(1 + site / matrixSize, 1 + site % matrixSize);
+            }
+        }
+    }
+
+    /**
+     * Sets the listener told about every site a later <tt>open()</tt> opens
+     * or fills (null to stop). Sites already full are taken as known and not
+     * reported.
+     * @param siteListener the listener, or null
+     */
+    public void setSiteListener(SiteListener siteListener) {
+        listener = siteListener;
+        if (listener == null) {
+            fullSites = null;
+            fillStack = null;
+            return;
+        }
+        fullSites = new long[openSites.length];
+        fillStack = new int[maxElements];
+        for (int location = 1; location < maxElements - 1; location++) {
+            if (isOpenSite(location) && uf.connected(location + maxElements, 0)) {
+                fullSites[location >>> 6] |= 1L << location;
+            }
+        }
+    }
+
+    /**
+     * Opens a blocked site (i,j) and connects it to its open neighbours.
+     * @param i starts at 1
+     * @param j starts at 1
+     */
+    private void openSite(int i, int j) {
         int location = xyTo1D(i, j); // get matrix location
-        openSites[location] = true; // unblock ("open") site
-    
+        setOpen(location); // unblock ("open") site
+        opened(location);
+
         // connect to adjacent sites: location +/- 1 and +/- N
         if (j < matrixSize) {
             connect(location, location + 1);
@@ -76,6 +200,82 @@ public class Percolation {
             uf.union(location, 0); // connect to virtual top (top => first row)
             uf.union(location + maxElements, 0); // backwash fix
         }
+
+        if (listener != null) {
+            listener.siteOpened(i, j);
+            if (uf.connected(location + maxElements, 0)) {
+                fill(location);
+            }
+        }
+    }
+
+    /**
+     * Called for every site <tt>open()</tt> or <tt>openAll</tt> opens, after
+     * its open bit is set and before its unions. Does nothing here.
+     * @param location the matrix index, N*(i-1) + j
+     */
+    protected void opened(int location) {
+    }
+
+    /**
+     * Clears the open bit of a site, for subclasses that undo opens along
+     * with the unions they caused.
+     * @param location the matrix index, N*(i-1) + j
+     */
+    protected final void block(int location) {
+        openSites[location >>> 6] &= ~(1L << location);
+    }
+
+    /**
+     * Is a site listener set?
+     * @return boolean
+     */
+    protected final boolean hasSiteListener() {
+        return listener != null;
+    }
+
+    /**
+     * Reports the newly full region around a site that just filled: a
+     * depth-first flood over open sites not yet marked full.
+     * @param start the matrix index of the site that filled
+     */
+    private void fill(int start) {
+        int top = push(start, 0);
+        while (top > 0) {
+            int location = fillStack[--top];
+            int i = (location - 1) / matrixSize + 1;
+            int j = location - (i - 1) * matrixSize;
+            listener.siteFilled(i, j);
+            if (j < matrixSize) {
+                top = push(location + 1, top);
+            }
+            if (j > 1) {
+                top = push(location - 1, top);
+            }
+            if (i < matrixSize) {
+                top = push(location + matrixSize, top);
+            }
+            if (i > 1) {
+                top = push(location - matrixSize, top);
+            }
+        }
+    }
+
+    /**
+     * Marks an open site full and pushes it on the fill stack, unless it is
+     * blocked or already full.
+     * @param location the matrix index
+     * @param top the stack size
+     * @return the new stack size
+     */
+    private int push(int location, int top) {
+        if (!isOpenSite(location)
+                || (fullSites[location >>> 6] & (1L << location)) != 0) {
+            return top;
+        }
+        fullSites[location >>> 6] |= 1L << location;
+        fillStack[top] = location;
+        return top + 1;
     }
 
     /**
@@ -87,7 +287,7 @@ public class Percolation {
     public boolean isOpen(int i, int j) {
         validateXY(i, j);
         // is site (row i, column j) open?
-        return openSites[xyTo1D(i, j)];
+        return isOpenSite(xyTo1D(i, j));
     }
 
     /**
@@ -117,9 +317,37 @@ public class Percolation {
     * Init matrix to track blocked sites.
     */
     private void initBlocked() {
-       openSites = new boolean[maxElements]; // init blocked matrix
-       openSites[0] = true; // virtual top node
-       openSites[maxElements - 1] = true; // virtual top node
+       openSites = new long[(maxElements + 63) >>> 6]; // init blocked bitset
+       setOpen(0); // virtual top node
+       setOpen(maxElements - 1); // virtual bottom node
+    }
+
+    /**
+    * Tests the open bit of a matrix location.
+    * @param location the matrix index
+    * @return boolean
+    */
+    private boolean isOpenSite(int location) {
+        return (openSites[location >>> 6] & (1L << location)) != 0;
+    }
+
+    /**
+    * Sets the open bit of a matrix location.
+    * @param location the matrix index
+    */
+    private void setOpen(int location) {
+        openSites[location >>> 6] |= 1L << location;
+    }
+
+    /**
+     * Reports the memory held by this system per grid site: the union-find
+     * arrays plus the open-site bitset. Array payloads only; object headers
+     * are ignored.
+     * @return bytes per site
+     */
+    public double bytesPerSite() {
+        long bytes = uf.memoryBytes() + 8L * openSites.length;
+        return bytes / ((double) matrixSize * matrixSize);
     }
 
     /**
@@ -149,7 +377,7 @@ public class Percolation {
     * @param adjacent location of adjacent site in matrix
     */
     private void connect(int location, int adjacent) {
-        if (!openSites[adjacent]) {
+        if (!isOpenSite(adjacent)) {
             return;
         }
         uf.union(location, adjacent);
@@ -231,5 +459,16 @@ public class Percolation {
            StdOut.println("Caught illegal input on open (5, 11): " + e);
         }
 
+        // Batch open Test
+        p = new Percolation(4, UnionFind.Backend.GRID);
+        p.openAll(new int[] {0, 4, 8, 12}, 0, 4); // column 1
+        StdOut.println("Percolates after batch? " + p.percolates());
+
+        // Memory report
+        StdOut.println("Bytes per site (N=1000, algs4): "
+                + new Percolation(1000).bytesPerSite());
+        StdOut.println("Bytes per site (N=1000, grid): "
+                + new Percolation(1000, UnionFind.Backend.GRID).bytesPerSite());
+
     }
 }
@@ -1,12 +1,70 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
 import edu.princeton.cs.algs4.StdOut;
 import edu.princeton.cs.algs4.StdRandom;
 import edu.princeton.cs.algs4.StdStats;
+import edu.princeton.cs.algs4.Stopwatch;
 /**
  * The <tt>PercolationStats</tt> class models <tt>Percolation</tt> test runs.
  * The input parameters are the matrix size, N, and the number of samples to
  * execute, T.
  * <p>
+ * Trials can also be spread across a <tt>ForkJoinPool</tt>. In that mode each
+ * trial draws from its own <tt>SplittableRandom</tt> stream: the run splits
+ * them off one root, seeded once, in trial order and before handing the
+ * trials to the workers, so trial k always gets the k-th split. The scores
+ * (and therefore the mean, stddev and confidence interval) are identical
+ * for a given seed whatever the number of worker threads.
+ * <p>
+ * The parallel mode is configured through {@link Options}: any
+ * {@link Engine} on either <tt>UnionFind</tt> backend, with either
+ * {@link Sampling} strategy. The two-argument
+ * constructor always uses the classic <tt>Percolation</tt>.
+ * <p>
+ * Summary statistics are computed once, when the trials finish, so the
+ * accessors are O(1). With <tt>Options.streaming(true)</tt> no per-trial
+ * array is kept at all: trials run in fixed batches of
+ * <tt>STREAM_BATCH</tt>, each fork/join leaf summarizes its trials in a
+ * <tt>RunningStats</tt>, the partial summaries are merged up the task tree
+ * and the batch summaries in order. The merge order depends only on T, so
+ * streamed results are also identical for a seed whatever the number of
+ * workers (though they can differ from the array mode in the last bits).
+ * <p>
+ * A streamed run can checkpoint itself: at batch boundaries, at most every
+ * <tt>checkpointInterval</tt> seconds, the settings, the number of
+ * completed trials and the running statistics are written to a small
+ * binary file (to a temporary file first, then atomically moved over the
+ * old checkpoint). Trial k always draws from the k-th split of the seed's
+ * root, so the number of completed trials is the whole RNG state; a run
+ * resumed from the checkpoint splits past them, carries on at the next
+ * batch and ends with exactly the statistics of an uninterrupted run.
+ * <p>
+ * Instead of a fixed T the caller can give a target half-width for the 95%
+ * confidence interval and a budget of trials. Trials then run (streamed) in
+ * batches sized from the current stddev estimate until the interval is
+ * narrow enough or the budget is spent; {@link #trials()} and
+ * {@link #elapsedTime()} report what it took.
+ * <p>
  * To run: java PercolationStats <matrix size> <number of trials>
+ *              [seed [workers]] [engine=classic|compact]
+ *              [backend=algs4|grid] [sampling=rejection|shuffle|bisect]
+ *              [stream] [width=<target half-width>]
+ *              [checkpoint=<file> [every=<seconds>] [resume]]
+ * <p>
+ * With width= the number of trials is the budget rather than a fixed count.
+ * checkpoint= implies stream and cannot be combined with width=; resume
+ * continues from the file if it exists.
  * <p>
  * Reference:
  * href="http://coursera.cs.princeton.edu/algs4/assignments/percolation.html
@@ -18,12 +76,232 @@ public class PercolationStats {
     /** constant for stats. **/
     private static final double VARIANCE_FACTOR = 1.96;
 
+    /** Number of trials a fork/join leaf task runs without splitting. **/
+    private static final int TRIALS_PER_TASK = 4;
+
+    /** Size of the first batch of an adaptive run. **/
+    private static final int FIRST_BATCH = 32;
+
+    /** Trials per batch of a streamed run. **/
+    private static final int STREAM_BATCH = 4096;
+
+    /** Checkpoint file tag ("PCST"). **/
+    private static final int CHECKPOINT_MAGIC = 0x50435354;
+
+    /**
+     * Checkpoint format version. 3: trial streams split in trial order off
+     * one root (2 derived them by XOR-mixing the trial index into a seed),
+     * so an older run cannot be resumed without changing its results.
+     */
+    private static final int CHECKPOINT_VERSION = 3;
+
+    /** Checkpoint file size in bytes. **/
+    private static final int CHECKPOINT_BYTES = 9 * 4 + 2 * 8 + 2 * 8;
+
+    /**
+     * The percolation engines a trial can run on.
+     */
+    public enum Engine {
+        /** <tt>Percolation</tt>: doubled union-find with virtual nodes. **/
+        CLASSIC {
+            PercolationSystem create(int dimensions, UnionFind.Backend backend) {
+                return new Percolation(dimensions, backend);
+            }
+        },
+        /** <tt>CompactPercolation</tt>: single union-find plus status bits. **/
+        COMPACT {
+            PercolationSystem create(int dimensions, UnionFind.Backend backend) {
+                return new CompactPercolation(dimensions, backend);
+            }
+        };
+
+        /**
+         * Builds an empty NxN system.
+         * @param dimensions the matrix size
+         * @param backend the union-find implementation to use
+         * @return the new system
+         */
+        abstract PercolationSystem create(int dimensions,
+                                          UnionFind.Backend backend);
+    }
+
+    /**
+     * How a trial picks the next site to open.
+     */
+    public enum Sampling {
+        /** Draw uniform sites, skipping those already open. **/
+        REJECTION,
+        /**
+         * Walk an incremental Fisher-Yates shuffle of the N^2 site indices:
+         * every draw opens a new site, so there are no rejected draws.
+         */
+        SHUFFLE,
+        /**
+         * Same site order as <tt>SHUFFLE</tt>, but opened in blocks with a
+         * binary search on the open count: a block that overshoots the
+         * threshold is rolled back. O(log N^2) <tt>percolates()</tt> checks
+         * per trial, and the same scores as <tt>SHUFFLE</tt> for a seed.
+         * Runs on <tt>RollbackPercolation</tt>, so it needs the
+         * <tt>CLASSIC</tt> engine and a backend that supports rollback;
+         * other combinations are rejected.
+         */
+        BISECT
+    }
+
+    /**
+     * Settings for a parallel run. Setters return <tt>this</tt> so they can
+     * be chained.
+     */
+    public static class Options {
+        /** The seed all trial random streams are derived from. **/
+        private long seed;
+
+        /** The number of worker threads. **/
+        private int workers = Runtime.getRuntime().availableProcessors();
+
+        /** The percolation engine to run trials on. **/
+        private Engine engine = Engine.CLASSIC;
+
+        /** The union-find implementation under the engine. **/
+        private UnionFind.Backend backend = UnionFind.Backend.ALGS4;
+
+        /** How trials pick sites to open. **/
+        private Sampling sampling = Sampling.REJECTION;
+
+        /** Summarize trials on the fly instead of keeping every score. **/
+        private boolean streaming;
+
+        /** Checkpoint file of a streamed run, or null. **/
+        private Path checkpoint;
+
+        /** Minimum seconds between checkpoint writes. **/
+        private double checkpointInterval = 60;
+
+        /** Continue from the checkpoint file if it exists. **/
+        private boolean resume;
+
+        /**
+         * @param value the seed all trial random streams are derived from
+         * @return these options
+         */
+        public Options seed(long value) {
+            seed = value;
+            return this;
+        }
+
+        /**
+         * @param value the number of worker threads
+         * @return these options
+         */
+        public Options workers(int value) {
+            if (value <= 0) {
+                throw new IllegalArgumentException("Please use positive integers.");
+            }
+            workers = value;
+            return this;
+        }
+
+        /**
+         * @param value the percolation engine to run trials on
+         * @return these options
+         */
+        public Options engine(Engine value) {
+            engine = value;
+            return this;
+        }
+
+        /**
+         * @param value the union-find implementation under the engine
+         * @return these options
+         */
+        public Options backend(UnionFind.Backend value) {
+            backend = value;
+            return this;
+        }
+
+        /**
+         * @param value how trials pick sites to open
+         * @return these options
+         */
+        public Options sampling(Sampling value) {
+            sampling = value;
+            return this;
+        }
+
+        /**
+         * @param value true to keep constant-memory running statistics
+         *              instead of the array of scores
+         * @return these options
+         */
+        public Options streaming(boolean value) {
+            streaming = value;
+            return this;
+        }
+
+        /**
+         * Checkpoint a streamed run to this file. Implies streaming.
+         * @param file the checkpoint file
+         * @return these options
+         */
+        public Options checkpoint(Path file) {
+            checkpoint = file;
+            streaming = true;
+            return this;
+        }
+
+        /**
+         * @param seconds minimum time between checkpoint writes
+         * @return these options
+         */
+        public Options checkpointInterval(double seconds) {
+            if (!(seconds >= 0)) {
+                throw new IllegalArgumentException(
+                    "Checkpoint interval must be non-negative.");
+            }
+            checkpointInterval = seconds;
+            return this;
+        }
+
+        /**
+         * @param value true to continue from the checkpoint file if it exists
+         * @return these options
+         */
+        public Options resume(boolean value) {
+            resume = value;
+            return this;
+        }
+
+        /**
+         * Rejects settings no run can honour: <tt>Sampling.BISECT</tt> needs
+         * the <tt>CLASSIC</tt> engine on a backend that supports rollback.
+         */
+        void validate() {
+            if (sampling == Sampling.BISECT && (engine != Engine.CLASSIC
+                    || !backend.supportsRollback())) {
+                throw new IllegalArgumentException(
+                    "sampling=bisect needs engine=classic and backend=grid.");
+            }
+        }
+    }
+
     /** The number of trials to perform. **/
     private int runs;
 
     /** The cumulative average of opens/size over all runs.**/
     private double[] scores;
 
+    /** Mean of the scores, computed once the trials finish. **/
+    private double mean;
+
+    /** Standard deviation of the scores (NaN for a single run). **/
+    private double stddev;
+
+    /** Wall-clock seconds the trials took. **/
+    private double elapsed;
+
+    /** Per-worker site permutation for <tt>Sampling.SHUFFLE</tt>. **/
+    private final ThreadLocal<int[]> siteOrders = new ThreadLocal<int[]>();
+
     /**
      * Constructor. Kicks off test run (NxN, T times).
      * @param dimensions the matrix size.
@@ -33,6 +311,7 @@ public class PercolationStats {
         if (dimensions <= 0 || num <= 0) {
             throw new IllegalArgumentException("Please use positive integers.");
         }
+        Stopwatch timer = new Stopwatch();
         runs = num;
         scores = new double[runs];
         // run trials
@@ -40,6 +319,275 @@ public class PercolationStats {
             int openSiteCount = runTest(dimensions);
             scores[k] = openSiteCount / (double) (dimensions * dimensions);
         }
+        summarize();
+        elapsed = timer.elapsedTime();
+    }
+
+    /**
+     * Constructor. Kicks off a parallel test run (NxN, T times) on a pool of
+     * the given number of worker threads.
+     * @param dimensions the matrix size.
+     * @param num the number of trials to run.
+     * @param seed the seed all trial random streams are derived from.
+     * @param workers the number of worker threads.
+     */
+    public PercolationStats(int dimensions, int num, long seed, int workers) {
+        this(dimensions, num, new Options().seed(seed).workers(workers));
+    }
+
+    /**
+     * Constructor. Kicks off a parallel test run (NxN, T times) on the given
+     * percolation engine.
+     * @param dimensions the matrix size.
+     * @param num the number of trials to run.
+     * @param seed the seed all trial random streams are derived from.
+     * @param workers the number of worker threads.
+     * @param engine the percolation engine to run trials on.
+     */
+    public PercolationStats(int dimensions, int num, long seed, int workers,
+                            Engine engine) {
+        this(dimensions, num,
+             new Options().seed(seed).workers(workers).engine(engine));
+    }
+
+    /**
+     * Constructor. Kicks off a parallel test run (NxN, T times) with the
+     * given settings.
+     * @param dimensions the matrix size.
+     * @param num the number of trials to run.
+     * @param options the run settings.
+     */
+    public PercolationStats(int dimensions, int num, Options options) {
+        if (dimensions <= 0 || num <= 0) {
+            throw new IllegalArgumentException("Please use positive integers.");
+        }
+        options.validate();
+        Stopwatch timer = new Stopwatch();
+        runs = num;
+        if (!options.streaming) {
+            scores = new double[runs];
+        }
+        RunningStats summary;
+        ForkJoinPool pool = new ForkJoinPool(options.workers);
+        try {
+            if (options.streaming) {
+                summary = runStreamed(pool, options, dimensions);
+            } else {
+                SplittableRandom root = new SplittableRandom(options.seed);
+                summary = pool.invoke(new TrialTask(options, dimensions, 0,
+                                                    splitTrials(root, runs)));
+            }
+        } finally {
+            pool.shutdown();
+        }
+        if (options.streaming) {
+            mean = summary.mean();
+            stddev = summary.stddev();
+        } else {
+            summarize();
+        }
+        elapsed = timer.elapsedTime();
+    }
+
+    /**
+     * Constructor. Runs trials in batches until the 95% confidence interval
+     * is at most <tt>halfWidth</tt> either side of the mean, or until
+     * <tt>maxTrials</tt> have run. Statistics are always streamed; the
+     * batches depend on the stddev seen so far, so such runs cannot be
+     * checkpointed.
+     * <p>
+     * After each batch the number of trials still needed is estimated as
+     * (1.96 * stddev / halfWidth)^2 minus those done; the next batch runs
+     * that many, but never more than the trials done so far, so a noisy
+     * early estimate cannot blow far past the target.
+     * @param dimensions the matrix size.
+     * @param halfWidth the target half-width of the confidence interval.
+     * @param maxTrials the most trials to run.
+     * @param options the run settings, without a checkpoint.
+     */
+    public PercolationStats(int dimensions, double halfWidth, int maxTrials,
+                            Options options) {
+        if (dimensions <= 0 || maxTrials <= 0) {
+            throw new IllegalArgumentException("Please use positive integers.");
+        }
+        if (!(halfWidth > 0)) {
+            throw new IllegalArgumentException("Half-width must be positive.");
+        }
+        if (options.checkpoint != null) {
+            throw new IllegalArgumentException(
+                "Checkpoints are not supported with a target half-width.");
+        }
+        options.validate();
+        Stopwatch timer = new Stopwatch();
+        RunningStats summary = new RunningStats();
+        SplittableRandom root = new SplittableRandom(options.seed);
+        ForkJoinPool pool = new ForkJoinPool(options.workers);
+        try {
+            int done = 0;
+            int batch = Math.min(FIRST_BATCH, maxTrials);
+            while (batch > 0) {
+                summary.merge(pool.invoke(new TrialTask(options, dimensions,
+                    done, splitTrials(root, batch))));
+                done += batch;
+                double s = summary.stddev();
+                if (done >= 2 && VARIANCE_FACTOR * s / Math.sqrt(done)
+                        <= halfWidth) {
+                    break;
+                }
+                double needed = Math.ceil(Math.pow(
+                    VARIANCE_FACTOR * s / halfWidth, 2)) - done;
+                batch = (int) Math.min(Math.max(needed, 1),
+                                       Math.min(done, maxTrials - done));
+            }
+        } finally {
+            pool.shutdown();
+        }
+        runs = (int) summary.count();
+        mean = summary.mean();
+        stddev = summary.stddev();
+        elapsed = timer.elapsedTime();
+    }
+
+    /**
+     * Runs a streamed campaign of <tt>runs</tt> trials in batches, resuming
+     * from and writing checkpoints if requested.
+     * @param pool the worker pool
+     * @param options the run settings
+     * @param dimensions the matrix size
+     * @return the statistics of all trials
+     */
+    private RunningStats runStreamed(ForkJoinPool pool, Options options,
+                                     int dimensions) {
+        RunningStats summary = new RunningStats();
+        SplittableRandom root = new SplittableRandom(options.seed);
+        int done = 0;
+        if (options.resume && options.checkpoint != null
+                && Files.exists(options.checkpoint)) {
+            ByteBuffer buffer = readCheckpoint(options.checkpoint);
+            done = restore(buffer, options, dimensions);
+            summary = new RunningStats(buffer.getLong(), buffer.getDouble(),
+                                       buffer.getDouble());
+            for (int k = 0; k < done; k++) {
+                root.split(); // the streams of the completed trials
+            }
+        }
+        long lastWrite = System.nanoTime();
+        while (done < runs) {
+            int batch = Math.min(STREAM_BATCH, runs - done);
+            summary.merge(pool.invoke(new TrialTask(options, dimensions,
+                done, splitTrials(root, batch))));
+            done += batch;
+            long now = System.nanoTime();
+            if (options.checkpoint != null && (done == runs
+                    || now - lastWrite >= options.checkpointInterval * 1e9)) {
+                writeCheckpoint(options, dimensions, done, summary);
+                lastWrite = now;
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Writes the state of a streamed run. The bytes go to a temporary file
+     * next to the checkpoint, are forced to disk, and the file is then moved
+     * over the checkpoint in one atomic step, so a crash leaves either the
+     * old checkpoint or the new one.
+     */
+    private void writeCheckpoint(Options options, int dimensions, int done,
+                                 RunningStats summary) {
+        ByteBuffer buffer = ByteBuffer.allocate(CHECKPOINT_BYTES);
+        buffer.putInt(CHECKPOINT_MAGIC).putInt(CHECKPOINT_VERSION)
+              .putInt(dimensions).putInt(runs).putLong(options.seed)
+              .putInt(options.engine.ordinal())
+              .putInt(options.backend.ordinal())
+              .putInt(options.sampling.ordinal())
+              .putInt(STREAM_BATCH).putInt(done)
+              .putLong(summary.count()).putDouble(summary.mean())
+              .putDouble(summary.m2());
+        buffer.flip();
+        Path target = options.checkpoint.toAbsolutePath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            } finally {
+                channel.close();
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE,
+                       StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write checkpoint " + target, e);
+        }
+    }
+
+    /**
+     * Reads a checkpoint file.
+     * @param file the checkpoint file
+     * @return its bytes, ready to read
+     */
+    private static ByteBuffer readCheckpoint(Path file) {
+        ByteBuffer buffer = ByteBuffer.allocate(CHECKPOINT_BYTES);
+        try {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    continue;
+                }
+            } finally {
+                channel.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read checkpoint " + file, e);
+        }
+        if (buffer.hasRemaining()) {
+            throw new IllegalArgumentException("Truncated checkpoint " + file);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Checks that a checkpoint belongs to this run and reads its progress.
+     * Leaves the buffer positioned at the running statistics.
+     * @return the number of completed trials
+     */
+    private int restore(ByteBuffer buffer, Options options, int dimensions) {
+        if (buffer.getInt() != CHECKPOINT_MAGIC
+                || buffer.getInt() != CHECKPOINT_VERSION) {
+            throw new IllegalArgumentException("Not a checkpoint file.");
+        }
+        if (buffer.getInt() != dimensions || buffer.getInt() != runs
+                || buffer.getLong() != options.seed
+                || buffer.getInt() != options.engine.ordinal()
+                || buffer.getInt() != options.backend.ordinal()
+                || buffer.getInt() != options.sampling.ordinal()
+                || buffer.getInt() != STREAM_BATCH) {
+            throw new IllegalArgumentException(
+                "Checkpoint was written by a run with different settings.");
+        }
+        int done = buffer.getInt();
+        if (done < 0 || done > runs) {
+            throw new IllegalArgumentException("Corrupt checkpoint.");
+        }
+        return done;
+    }
+
+    /**
+     * Computes mean and stddev from the scores array.
+     */
+    private void summarize() {
+        mean = StdStats.mean(scores);
+        if (runs == 1) {
+            stddev = Double.NaN;
+        } else {
+            stddev = StdStats.stddev(scores);
+        }
     }
 
     /**
@@ -47,7 +595,7 @@ public class PercolationStats {
      * @return mean value.
      */
     public double mean() {
-        return StdStats.mean(scores);
+        return mean;
     }
 
     /**
@@ -55,11 +603,7 @@ public class PercolationStats {
      * @return standard deviation value.
      */
     public double stddev() {
-        if (runs == 1) {
-           return Double.NaN;
-        } else {
-           return StdStats.stddev(scores);
-        }
+        return stddev;
     }
 
     /**
@@ -67,7 +611,7 @@ public class PercolationStats {
      * @return confidence interval upper bound
      */
     public double confidenceLo() {
-        return mean() - (VARIANCE_FACTOR * stddev()) / Math.sqrt(runs);
+        return mean - (VARIANCE_FACTOR * stddev) / Math.sqrt(runs);
     }
 
     /**
@@ -75,7 +619,23 @@ public class PercolationStats {
      * @return confidence interval upper bound
      */
     public double confidenceHi() {
-        return mean() + (VARIANCE_FACTOR * stddev()) / Math.sqrt(runs);
+        return mean + (VARIANCE_FACTOR * stddev) / Math.sqrt(runs);
+    }
+
+    /**
+     * The number of trials that were run.
+     * @return trial count
+     */
+    public int trials() {
+        return runs;
+    }
+
+    /**
+     * Wall-clock time the trials took.
+     * @return elapsed seconds
+     */
+    public double elapsedTime() {
+        return elapsed;
     }
 
     /**
@@ -100,6 +660,240 @@ public class PercolationStats {
         return openSiteCount;
     }
 
+    /**
+     * Executes a trial drawing sites from the given random stream rather than
+     * the shared <tt>StdRandom</tt> state.
+     */
+    private static int runTest(Options options, int matrixSize,
+                               SplittableRandom random) {
+        PercolationSystem percolation =
+            options.engine.create(matrixSize, options.backend);
+        int maxSize = matrixSize * matrixSize;
+        int openSiteCount = 0;
+        while (!percolation.percolates()) {
+            int ranNum = random.nextInt(1, maxSize + 1);
+            int row = 1 + (ranNum - 1) / matrixSize;
+            int col = ranNum - (row - 1) * matrixSize;
+            if (!percolation.isOpen(row, col)) {
+                percolation.open(row, col);
+                openSiteCount++;
+            }
+        }
+        return openSiteCount;
+    }
+
+    /**
+     * Executes a trial opening sites in the order of a Fisher-Yates shuffle
+     * of the site indices, drawn one step at a time so only the sites the
+     * trial actually opens are shuffled.
+     * <p>
+     * The permutation is reset to the identity first so a trial's result
+     * depends only on its random stream, not on the trials the worker ran
+     * before it; that sequential pass is cheap next to the union-find work.
+     * @param sites reusable buffer of at least N^2 entries, or null for
+     *              <tt>Sampling.REJECTION</tt>
+     */
+    private static int runShuffleTest(Options options, int matrixSize,
+                                      SplittableRandom random, int[] sites) {
+        PercolationSystem percolation =
+            options.engine.create(matrixSize, options.backend);
+        int maxSize = matrixSize * matrixSize;
+        for (int i = 0; i < maxSize; i++) {
+            sites[i] = i;
+        }
+        int openSiteCount = 0;
+        while (!percolation.percolates()) {
+            int pick = openSiteCount + random.nextInt(maxSize - openSiteCount);
+            int site = sites[pick];
+            sites[pick] = sites[openSiteCount];
+            sites[openSiteCount] = site;
+            percolation.open(1 + site / matrixSize, 1 + site % matrixSize);
+            openSiteCount++;
+        }
+        return openSiteCount;
+    }
+
+    /**
+     * Executes a trial by binary search on the number of opened sites. The
+     * invariant is that the first <tt>lo</tt> sites of the shuffle do not
+     * percolate and the first <tt>hi</tt> do; the grid holds the first
+     * <tt>lo</tt> and a snapshot of that state. Each step opens the block up
+     * to the midpoint and either keeps it (new snapshot) or rolls it back.
+     * <p>
+     * The shuffle is drawn lazily in index order with exactly the draws
+     * <tt>runShuffleTest</tt> makes, so both modes see the same site order.
+     * @param options the run settings; their backend must support rollback
+     * @param matrixSize the grid size N
+     * @param random the trial's random stream
+     * @param sites reusable buffer of at least N^2 entries
+     * @return open sites when the grid first percolated
+     */
+    private static int runBisectTest(Options options, int matrixSize,
+                                     SplittableRandom random, int[] sites) {
+        RollbackPercolation percolation =
+            new RollbackPercolation(matrixSize, options.backend);
+        int maxSize = matrixSize * matrixSize;
+        for (int i = 0; i < maxSize; i++) {
+            sites[i] = i;
+        }
+        int shuffled = 0;
+        int lo = 0;
+        int hi = maxSize;
+        percolation.snapshot();
+        while (hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+            for (; shuffled < mid; shuffled++) {
+                int pick = shuffled + random.nextInt(maxSize - shuffled);
+                int site = sites[pick];
+                sites[pick] = sites[shuffled];
+                sites[shuffled] = site;
+            }
+            percolation.openAll(sites, lo, mid);
+            if (percolation.percolates()) {
+                percolation.rollback();
+                hi = mid;
+            } else {
+                percolation.snapshot();
+                lo = mid;
+            }
+        }
+        percolation.releaseSnapshot();
+        return hi;
+    }
+
+    /**
+     * The calling worker's site permutation buffer, allocated on first use
+     * and reused by every trial the worker runs.
+     * @param maxSize number of sites
+     * @return the buffer
+     */
+    private int[] siteOrder(int maxSize) {
+        int[] sites = siteOrders.get();
+        if (sites == null || sites.length < maxSize) {
+            sites = new int[maxSize];
+            siteOrders.set(sites);
+        }
+        return sites;
+    }
+
+    /**
+     * Splits the streams of the next <tt>count</tt> trials off the run's
+     * root, in trial order. Each split gets its own seed and gamma, which
+     * seeding new <tt>SplittableRandom</tt>s from derived longs would not
+     * give. Called on the driving thread only, so which stream a trial gets
+     * never depends on the workers.
+     * @param root the run's root stream, advanced by <tt>count</tt> splits
+     * @param count the number of trials
+     * @return the streams, element i for the i-th next trial
+     */
+    private static SplittableRandom[] splitTrials(SplittableRandom root,
+                                                  int count) {
+        SplittableRandom[] streams = new SplittableRandom[count];
+        for (int i = 0; i < count; i++) {
+            streams[i] = root.split();
+        }
+        return streams;
+    }
+
+    /**
+     * Runs one trial on the calling thread, exactly as a worker would, and
+     * returns the number of sites it opened. Package-private so the JMH
+     * benchmarks (wk1/jmh) can time single trials on their own thread.
+     * @param options the run configuration
+     * @param dimensions the grid size N
+     * @param random the trial's random stream
+     * @param sites reusable buffer of at least N^2 entries, or null for
+     *              <tt>Sampling.REJECTION</tt>
+     * @return open sites when the grid first percolated
+     */
+    static int runTrial(Options options, int dimensions,
+                        SplittableRandom random, int[] sites) {
+        if (options.sampling == Sampling.SHUFFLE) {
+            return runShuffleTest(options, dimensions, random, sites);
+        } else if (options.sampling == Sampling.BISECT) {
+            return runBisectTest(options, dimensions, random, sites);
+        }
+        return runTest(options, dimensions, random);
+    }
+
+    /**
+     * Fork/join task running trials first + [lo, hi) into <tt>scores</tt>
+     * (when kept) and returning their running statistics. Splits are by
+     * midpoint down to <tt>TRIALS_PER_TASK</tt>, and halves are merged left
+     * then right, so the merge order is fixed by the range alone.
+     */
+    private class TrialTask extends RecursiveTask<RunningStats> {
+        private static final long serialVersionUID = 1L;
+
+        /** The run settings. **/
+        private final Options options;
+
+        /** The matrix size. **/
+        private final int dimensions;
+
+        /** Index of the trial that draws from <tt>streams[0]</tt>. **/
+        private final int first;
+
+        /** Random streams of the batch, in trial order. **/
+        private final SplittableRandom[] streams;
+
+        /** First entry of <tt>streams</tt> (inclusive). **/
+        private final int lo;
+
+        /** Last entry of <tt>streams</tt> (exclusive). **/
+        private final int hi;
+
+        /**
+         * A task for a whole batch.
+         * @param first index of the batch's first trial
+         * @param streams one stream per trial, from <tt>splitTrials</tt>
+         */
+        TrialTask(Options options, int dimensions, int first,
+                  SplittableRandom[] streams) {
+            this(options, dimensions, first, streams, 0, streams.length);
+        }
+
+        private TrialTask(Options options, int dimensions, int first,
+                          SplittableRandom[] streams, int lo, int hi) {
+            this.options = options;
+            this.dimensions = dimensions;
+            this.first = first;
+            this.streams = streams;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected RunningStats compute() {
+            if (hi - lo <= TRIALS_PER_TASK) {
+                RunningStats summary = new RunningStats();
+                int maxSize = dimensions * dimensions;
+                // REJECTION draws sites directly and needs no buffer
+                int[] sites = options.sampling == Sampling.REJECTION
+                              ? null : siteOrder(maxSize);
+                for (int i = lo; i < hi; i++) {
+                    int openSiteCount = runTrial(options, dimensions,
+                                                 streams[i], sites);
+                    double score = openSiteCount / (double) maxSize;
+                    if (scores != null) {
+                        scores[first + i] = score;
+                    }
+                    summary.add(score);
+                }
+                return summary;
+            }
+            int mid = (lo + hi) >>> 1;
+            TrialTask left = new TrialTask(options, dimensions, first,
+                                           streams, lo, mid);
+            TrialTask right = new TrialTask(options, dimensions, first,
+                                            streams, mid, hi);
+            right.fork();
+            RunningStats summary = left.compute();
+            summary.merge(right.join());
+            return summary;
+        }
+    }
+
     /**
      * main for running tests.
      * @param args command line arguments
@@ -111,19 +905,74 @@ public class PercolationStats {
         }
 
         int matrixSize = 0, numberOfRuns = 0;
+        Options options = new Options();
+        boolean parallel = false;
+        double halfWidth = 0;
         try {
             matrixSize = Integer.parseInt(args[0]);
             numberOfRuns = Integer.parseInt(args[1]);
+            int positional = 0;
+            for (int k = 2; k < args.length; k++) {
+                parallel = true;
+                String arg = args[k];
+                int eq = arg.indexOf('=');
+                String value = arg.substring(eq + 1).toUpperCase();
+                if (arg.equals("stream")) {
+                    options.streaming(true);
+                } else if (arg.equals("resume")) {
+                    options.resume(true);
+                } else if (arg.startsWith("every=")) {
+                    options.checkpointInterval(Double.parseDouble(value));
+                } else if (arg.startsWith("checkpoint=")) {
+                    options.checkpoint(Paths.get(arg.substring(eq + 1)));
+                } else if (arg.startsWith("engine=")) {
+                    options.engine(Engine.valueOf(value));
+                } else if (arg.startsWith("backend=")) {
+                    options.backend(UnionFind.Backend.valueOf(value));
+                } else if (arg.startsWith("width=")) {
+                    halfWidth = Double.parseDouble(value);
+                } else if (arg.startsWith("sampling=")) {
+                    options.sampling(Sampling.valueOf(value));
+                } else if (positional++ == 0) {
+                    options.seed(Long.parseLong(arg));
+                } else {
+                    options.workers(Integer.parseInt(arg));
+                }
+            }
         } catch (NumberFormatException e) {
             System.err.println("Arguments must be an integer.");
            return;
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown option: " + e.getMessage());
+            return;
+        }
+        try {
+            options.validate();
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return;
         }
 
         // Execute Trials
-        PercolationStats stats = new PercolationStats(matrixSize, numberOfRuns);
+        PercolationStats stats;
+        if (halfWidth > 0) {
+            stats = new PercolationStats(matrixSize, halfWidth, numberOfRuns,
+                                         options);
+        } else if (parallel) {
+            stats = new PercolationStats(matrixSize, numberOfRuns, options);
+        } else {
+            stats = new PercolationStats(matrixSize, numberOfRuns);
+        }
         StdOut.println("mean \t\t\t= " + stats.mean());
         StdOut.println("stddev \t\t\t= " + stats.stddev());
         StdOut.println("95% confidence interval = " + stats.confidenceLo()
                 + ", " + stats.confidenceHi());
+        StdOut.println("trials \t\t\t= " + stats.trials());
+        StdOut.println("elapsed \t\t= " + stats.elapsedTime() + " seconds");
+        if (halfWidth > 0) {
+            double reached = (stats.confidenceHi() - stats.confidenceLo()) / 2;
+            StdOut.println("half-width \t\t= " + reached
+                    + (reached <= halfWidth ? "" : " (budget exhausted)"));
+        }
     }
 }
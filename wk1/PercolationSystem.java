@@ -0,0 +1,41 @@
+/**
+ * The <tt>PercolationSystem</tt> interface is the API shared by the
+ * percolation engines, so clients such as <tt>PercolationStats</tt> can swap
+ * one implementation for another.
+ * <p>
+ * NOTE: API follows a 1,N element convention, not 0,N-1.
+ * <p>
+ * Reference:
+ * http://coursera.cs.princeton.edu/algs4/assignments/percolation.html
+ */
+public interface PercolationSystem {
+
+    /**
+     * Open a site at coordinates (i,j) if it is not open already.
+     * @param i row number (1,N)
+     * @param j column number (1,N)
+     */
+    void open(int i, int j);
+
+    /**
+     * Tests to see if a site is open.
+     * @param i row number (1,N)
+     * @param j column number (1,N)
+     * @return boolean
+     */
+    boolean isOpen(int i, int j);
+
+    /**
+     * Tests for a full site: an open site connected to the top row.
+     * @param i row number (1,N)
+     * @param j column number (1,N)
+     * @return boolean
+     */
+    boolean isFull(int i, int j);
+
+    /**
+     * Does the system percolate?
+     * @return boolean
+     */
+    boolean percolates();
+}
@@ -1,7 +1,7 @@
 /******************************************************************************
- *  Compilation:  javac PercolationVisualizer.java
+ *  Compilation:  javac -sourcepath .:../common PercolationVisualizer.java
  *  Execution:    java PercolationVisualizer input.txt
- *  Dependencies: Percolation.java
+ *  Dependencies: Percolation.java ../common/TokenScanner.java
  *
  *  This program takes the name of a file as a command-line argument.
  *  From that file, it
@@ -14,11 +14,15 @@
  *  open sites (that aren't full) in white, and blocked sites in black,
  *  with with site (1, 1) in the upper left-hand corner.
  *
+ *  The grid is drawn in full once; after that a SiteRepainter listening
+ *  to the Percolation repaints only the sites each open() changed, so a
+ *  frame costs O(changed sites) instead of O(N^2 log N).
+ *
  ******************************************************************************/
 
+import java.awt.Color;
 import java.awt.Font;
 
-import edu.princeton.cs.algs4.In;
 import edu.princeton.cs.algs4.StdDraw;
 
 public class PercolationVisualizer {
@@ -61,23 +65,69 @@ public class PercolationVisualizer {
 
     }
 
+    // repaints only the sites reported by the Percolation it listens to
+    public static class SiteRepainter implements Percolation.SiteListener {
+        private final int N;
+        private int opened;
+
+        public SiteRepainter(Percolation perc, int N) {
+            this.N = N;
+            for (int row = 1; row <= N; row++)
+                for (int col = 1; col <= N; col++)
+                    if (perc.isOpen(row, col)) opened++;
+        }
+
+        public void siteOpened(int row, int col) {
+            opened++;
+            paint(row, col, StdDraw.WHITE);
+        }
+
+        public void siteFilled(int row, int col) {
+            paint(row, col, StdDraw.BOOK_LIGHT_BLUE);
+        }
+
+        // number of open sites so far
+        public int opened() {
+            return opened;
+        }
+
+        private void paint(int row, int col, Color color) {
+            StdDraw.setPenColor(color);
+            StdDraw.filledSquare(col - 0.5, N - row + 0.5, 0.45);
+        }
+    }
+
+    // redraw only the status text under the grid
+    public static void drawStatus(Percolation perc, int N, int opened) {
+        StdDraw.setPenColor(StdDraw.WHITE);
+        StdDraw.filledRectangle(N/2.0, -N*.025, 0.55*N, 0.025*N);
+        StdDraw.setFont(new Font("SansSerif", Font.PLAIN, 12));
+        StdDraw.setPenColor(StdDraw.BLACK);
+        StdDraw.text(.25*N, -N*.025, opened + " open sites");
+        if (perc.percolates()) StdDraw.text(.75*N, -N*.025, "percolates");
+        else                   StdDraw.text(.75*N, -N*.025, "does not percolate");
+    }
+
     public static void main(String[] args) {
-        In in = new In(args[0]);      // input file
-        int N = in.readInt();         // N-by-N percolation system
-
-        // turn on animation mode
-        StdDraw.show(0);
-
-        // repeatedly read in sites to open and draw resulting system
-        Percolation perc = new Percolation(N);
-        draw(perc, N);
-        StdDraw.show(DELAY);
-        while (!in.isEmpty()) {
-            int i = in.readInt();
-            int j = in.readInt();
-            perc.open(i, j);
+        try (TokenScanner in = new TokenScanner(args[0])) {   // input file
+            int N = in.nextInt();         // N-by-N percolation system
+
+            // turn on animation mode
+            StdDraw.show(0);
+
+            // repeatedly read in sites to open and draw the sites that changed
+            Percolation perc = new Percolation(N);
             draw(perc, N);
+            SiteRepainter repainter = new SiteRepainter(perc, N);
+            perc.setSiteListener(repainter);
             StdDraw.show(DELAY);
+            while (in.hasNext()) {
+                int i = in.nextInt();
+                int j = in.nextInt();
+                perc.open(i, j);
+                drawStatus(perc, N, repainter.opened());
+                StdDraw.show(DELAY);
+            }
         }
     }
 }
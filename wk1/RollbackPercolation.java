@@ -0,0 +1,170 @@
+import java.util.Arrays;
+
+import edu.princeton.cs.algs4.StdOut;
+/**
+ * The <tt>RollbackPercolation</tt> class is a <tt>Percolation</tt> whose
+ * state can be snapshotted and rolled back, so a caller can open a large
+ * block, test <tt>percolates()</tt> once and undo the block if it
+ * overshot. It runs on a {@link RollbackUnionFind} (by default a
+ * <tt>GridUnionFind</tt>), so the capability is fixed by the type: code
+ * that needs rollback asks for a <tt>RollbackPercolation</tt>.
+ * <p>
+ * While a snapshot is held, every site opened is journaled; a rollback
+ * blocks those sites again and has the union-find undo their unions.
+ * Snapshots and a {@link Percolation.SiteListener} are mutually exclusive,
+ * since rollbacks are not reported to the listener.
+ */
+public class RollbackPercolation extends Percolation {
+
+    /** The same union-find the superclass runs on, typed for rollback. **/
+    private final RollbackUnionFind uf;
+
+    /** The size of the matrix. **/
+    private final int matrixSize;
+
+    /** Sites opened since the snapshot, or null when none is held. **/
+    private int[] openedSinceSnapshot;
+
+    /** Number of entries used in <tt>openedSinceSnapshot</tt>. **/
+    private int openedCount;
+
+    /**
+    * Constructor on a <tt>GridUnionFind</tt>.
+    * @param dimension NxN matrix size
+    */
+    public RollbackPercolation(int dimension) {
+        this(dimension, UnionFind.Backend.GRID);
+    }
+
+    /**
+    * Constructor on the given backend, which must support rollback.
+    * @param dimension NxN matrix size
+    * @param backend the union-find implementation to use
+    */
+    public RollbackPercolation(int dimension, UnionFind.Backend backend) {
+        this(dimension, rollbackUnionFind(dimension, backend));
+    }
+
+    /**
+    * Keeps the rollback-typed reference to the union-find handed up.
+    * @param dimension NxN matrix size
+    * @param unionFind union-find of unionFindSize(dimension) elements
+    */
+    private RollbackPercolation(int dimension, RollbackUnionFind unionFind) {
+        super(dimension, unionFind);
+        uf = unionFind;
+        matrixSize = dimension;
+    }
+
+    /**
+     * @param dimension NxN matrix size
+     * @param backend the union-find implementation to use
+     * @return a union-find of unionFindSize(dimension) elements
+     */
+    private static RollbackUnionFind rollbackUnionFind(int dimension,
+                                                       UnionFind.Backend backend) {
+        if (!backend.supportsRollback()) {
+            throw new IllegalArgumentException(
+                "Backend " + backend + " does not support rollback.");
+        }
+        return (RollbackUnionFind) backend.create(unionFindSize(dimension));
+    }
+
+    /**
+     * Records the current state so that everything opened afterwards can be
+     * undone by {@link #rollback()}. Replaces any earlier snapshot.
+     */
+    public void snapshot() {
+        if (hasSiteListener()) {
+            throw new IllegalStateException("Snapshots cannot be listened to.");
+        }
+        uf.snapshot();
+        if (openedSinceSnapshot == null) {
+            openedSinceSnapshot = new int[64];
+        }
+        openedCount = 0;
+    }
+
+    /**
+     * Blocks every site opened since the last {@link #snapshot()} and undoes
+     * their unions. The snapshot stays in place.
+     */
+    public void rollback() {
+        if (openedSinceSnapshot == null) {
+            throw new IllegalStateException("No snapshot to roll back to.");
+        }
+        uf.rollback();
+        for (int k = 0; k < openedCount; k++) {
+            block(openedSinceSnapshot[k]);
+        }
+        openedCount = 0;
+    }
+
+    /**
+     * Drops the snapshot; later opens are no longer recorded.
+     */
+    public void releaseSnapshot() {
+        if (openedSinceSnapshot != null) {
+            uf.releaseSnapshot();
+            openedSinceSnapshot = null;
+            openedCount = 0;
+        }
+    }
+
+    /**
+     * {@inheritDoc} Not allowed while a snapshot is held.
+     */
+    @Override
+    public void setSiteListener(SiteListener siteListener) {
+        if (openedSinceSnapshot != null) {
+            throw new IllegalStateException("Snapshots cannot be listened to.");
+        }
+        super.setSiteListener(siteListener);
+    }
+
+    /**
+     * Journals the site while a snapshot is held.
+     * @param location the matrix index
+     */
+    @Override
+    protected void opened(int location) {
+        if (openedSinceSnapshot != null) {
+            if (openedCount == openedSinceSnapshot.length) {
+                openedSinceSnapshot = Arrays.copyOf(openedSinceSnapshot,
+                                                2 * openedCount);
+            }
+            openedSinceSnapshot[openedCount++] = location;
+        }
+    }
+
+    /**
+     * {@inheritDoc} Includes the snapshot journal, if any.
+     */
+    @Override
+    public double bytesPerSite() {
+        double bytes = super.bytesPerSite();
+        if (openedSinceSnapshot != null) {
+            bytes += 4.0 * openedSinceSnapshot.length / ((double) matrixSize * matrixSize);
+        }
+        return bytes;
+    }
+
+    /**
+     * Test client.
+     * @param args command line arguments
+     */
+    public static void main(String[] args) {
+        RollbackPercolation p = new RollbackPercolation(4);
+        p.openAll(new int[] {0, 4, 8}, 0, 3); // column 1, rows 1-3
+        p.snapshot();
+        p.openAll(new int[] {12}, 0, 1); // (4,1)
+        StdOut.println("Percolates after batch? " + p.percolates());
+        p.rollback();
+        StdOut.println("Percolates after rollback? " + p.percolates()
+                + ", (4,1) open? " + p.isOpen(4, 1)
+                + ", (3,1) full? " + p.isFull(3, 1));
+        p.releaseSnapshot();
+        p.open(4, 1);
+        StdOut.println("Percolates after release and open? " + p.percolates());
+    }
+}
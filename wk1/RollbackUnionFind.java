@@ -0,0 +1,25 @@
+/**
+ * The <tt>RollbackUnionFind</tt> interface is a {@link UnionFind} whose
+ * unions can be undone back to a snapshot. Code that needs rollback asks for
+ * this type, so a backend without it (such as <tt>Algs4UnionFind</tt>) is
+ * rejected at compile time rather than when <tt>snapshot()</tt> is called.
+ */
+public interface RollbackUnionFind extends UnionFind {
+
+    /**
+     * Records the current state so later unions can be undone with
+     * {@link #rollback()}. Replaces any earlier snapshot.
+     */
+    void snapshot();
+
+    /**
+     * Restores the state recorded by the last {@link #snapshot()}. The
+     * snapshot stays in place.
+     */
+    void rollback();
+
+    /**
+     * Drops the snapshot and stops recording changes.
+     */
+    void releaseSnapshot();
+}
@@ -0,0 +1,144 @@
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+import edu.princeton.cs.algs4.StdStats;
+/**
+ * The <tt>RunningStats</tt> class accumulates the count, mean and variance of
+ * a stream of values in constant memory using Welford's update. Two
+ * accumulators can be merged (Chan et al.), so workers can summarize their
+ * own trials and the results be combined afterwards. All queries are O(1).
+ * <p>
+ * Reference:
+ * https://en.wikipedia.org/wiki/Algorithms_for_calculating_variance
+ */
+public class RunningStats {
+    /** Number of values seen. **/
+    private long count;
+
+    /** Mean of the values seen. **/
+    private double mean;
+
+    /** Sum of squared differences from the mean. **/
+    private double m2;
+
+    /**
+     * Constructor. An empty accumulator.
+     */
+    public RunningStats() {
+    }
+
+    /**
+     * Constructor. Restores an accumulator from its raw state.
+     * @param count number of values seen
+     * @param mean mean of the values seen
+     * @param m2 sum of squared differences from the mean
+     */
+    public RunningStats(long count, double mean, double m2) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count must be non-negative.");
+        }
+        this.count = count;
+        this.mean = mean;
+        this.m2 = m2;
+    }
+
+    /**
+     * Adds a value.
+     * @param x the value
+     */
+    public void add(double x) {
+        count++;
+        double delta = x - mean;
+        mean += delta / count;
+        m2 += delta * (x - mean);
+    }
+
+    /**
+     * Folds another accumulator into this one. The other is not changed.
+     * @param other the accumulator to merge
+     */
+    public void merge(RunningStats other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            count = other.count;
+            mean = other.mean;
+            m2 = other.m2;
+            return;
+        }
+        long n = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / n;
+        m2 += other.m2 + delta * delta * ((double) count * other.count / n);
+        count = n;
+    }
+
+    /**
+     * @return number of values seen
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * @return mean of the values seen (NaN if none)
+     */
+    public double mean() {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        return mean;
+    }
+
+    /**
+     * @return sample variance (NaN for fewer than two values)
+     */
+    public double var() {
+        if (count < 2) {
+            return Double.NaN;
+        }
+        return m2 / (count - 1);
+    }
+
+    /**
+     * @return sample standard deviation (NaN for fewer than two values)
+     */
+    public double stddev() {
+        return Math.sqrt(var());
+    }
+
+    /**
+     * @return sum of squared differences from the mean
+     */
+    public double m2() {
+        return m2;
+    }
+
+    /**
+     * Test client. Compares against <tt>StdStats</tt>, including a merge of
+     * two halves.
+     * @param args command line arguments
+     */
+    public static void main(String[] args) {
+        double[] a = new double[100000];
+        RunningStats all = new RunningStats();
+        RunningStats left = new RunningStats();
+        RunningStats right = new RunningStats();
+        for (int i = 0; i < a.length; i++) {
+            a[i] = StdRandom.gaussian(0.59, 0.01);
+            all.add(a[i]);
+            if (i < a.length / 3) {
+                left.add(a[i]);
+            } else {
+                right.add(a[i]);
+            }
+        }
+        left.merge(right);
+        StdOut.println("StdStats mean=" + StdStats.mean(a)
+                + " stddev=" + StdStats.stddev(a));
+        StdOut.println("streaming mean=" + all.mean()
+                + " stddev=" + all.stddev());
+        StdOut.println("merged   mean=" + left.mean()
+                + " stddev=" + left.stddev());
+    }
+}
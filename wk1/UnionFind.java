@@ -0,0 +1,77 @@
+/**
+ * The <tt>UnionFind</tt> interface is the union-find API the percolation
+ * engines are written against, so the backing implementation can be chosen
+ * per instance (see {@link Backend}).
+ * <p>
+ * Implementations are not required to validate their arguments; callers pass
+ * indices they computed themselves.
+ * <p>
+ * Backends that can undo unions also implement {@link RollbackUnionFind}.
+ */
+public interface UnionFind {
+
+    /**
+     * The available union-find implementations.
+     */
+    enum Backend {
+        /** <tt>edu.princeton.cs.algs4.WeightedQuickUnionUF</tt>. **/
+        ALGS4 {
+            public UnionFind create(int n) {
+                return new Algs4UnionFind(n);
+            }
+        },
+        /** <tt>GridUnionFind</tt>: packed array, path halving, by rank. **/
+        GRID {
+            public UnionFind create(int n) {
+                return new GridUnionFind(n);
+            }
+
+            public boolean supportsRollback() {
+                return true;
+            }
+        };
+
+        /**
+         * Builds a union-find of n singleton sets.
+         * @param n number of elements
+         * @return the new union-find
+         */
+        public abstract UnionFind create(int n);
+
+        /**
+         * @return does create() return a {@link RollbackUnionFind}?
+         */
+        public boolean supportsRollback() {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the root of the set containing p.
+     * @param p the element
+     * @return root of p's set
+     */
+    int find(int p);
+
+    /**
+     * Merges the sets containing p and q.
+     * @param p an element
+     * @param q an element
+     * @return root of the merged set
+     */
+    int union(int p, int q);
+
+    /**
+     * Are p and q in the same set?
+     * @param p an element
+     * @param q an element
+     * @return boolean
+     */
+    boolean connected(int p, int q);
+
+    /**
+     * Reports the memory held by the union-find's arrays (payload only).
+     * @return bytes
+     */
+    long memoryBytes();
+}
@@ -0,0 +1,61 @@
+import java.util.SplittableRandom;
+
+import benchmark.PercolationBenchmark;
+/**
+ * The <tt>PercolationBenchmarkTarget</tt> class exposes the default-package
+ * percolation classes to <tt>benchmark.PercolationBenchmark</tt>, which JMH
+ * requires to live in a named package.
+ */
+public class PercolationBenchmarkTarget implements PercolationBenchmark.Target {
+    /**
+     * Builds an empty grid.
+     * @param engine a <tt>PercolationStats.Engine</tt> name
+     * @param backend a <tt>UnionFind.Backend</tt> name
+     * @param n the grid size
+     * @return the grid
+     */
+    public PercolationBenchmark.Grid create(String engine, String backend,
+                                            int n) {
+        final PercolationSystem system = PercolationStats.Engine
+            .valueOf(engine).create(n, UnionFind.Backend.valueOf(backend));
+        return new PercolationBenchmark.Grid() {
+            public void open(int i, int j) {
+                system.open(i, j);
+            }
+            public boolean isFull(int i, int j) {
+                return system.isFull(i, j);
+            }
+            public boolean percolates() {
+                return system.percolates();
+            }
+        };
+    }
+
+    /**
+     * Builds a single-trial runner. Trials run on the calling thread, reuse
+     * one site buffer and split their streams off one root, as in a
+     * <tt>PercolationStats</tt> run.
+     * @param engine a <tt>PercolationStats.Engine</tt> name
+     * @param backend a <tt>UnionFind.Backend</tt> name
+     * @param sampling a <tt>PercolationStats.Sampling</tt> name
+     * @param n the grid size
+     * @return the runner
+     */
+    public PercolationBenchmark.Trial trials(String engine, String backend,
+                                             String sampling, final int n) {
+        PercolationStats.Sampling mode = PercolationStats.Sampling.valueOf(sampling);
+        final PercolationStats.Options options = new PercolationStats.Options()
+            .engine(PercolationStats.Engine.valueOf(engine))
+            .backend(UnionFind.Backend.valueOf(backend))
+            .sampling(mode);
+        final int[] sites = mode == PercolationStats.Sampling.REJECTION
+                            ? null : new int[n * n];
+        final SplittableRandom root = new SplittableRandom(0);
+        return new PercolationBenchmark.Trial() {
+            public int run() {
+                return PercolationStats.runTrial(options, n, root.split(),
+                                                 sites);
+            }
+        };
+    }
+}
@@ -0,0 +1,303 @@
+package benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+/**
+ * The <tt>PercolationBenchmark</tt> class holds the JMH benchmarks for the
+ * percolation subsystem. For every engine/backend pair and every N it
+ * measures
+ * <ul>
+ * <li>open: opening all N^2 sites of a fresh grid in a random order,</li>
+ * <li>isFull: one query on a grid opened to 60%, at a random site,</li>
+ * <li>percolates: one call on that grid,</li>
+ * <li>trial: one <tt>PercolationStats</tt> trial, on the benchmark
+ *     thread so <tt>-prof gc</tt> sees its allocation.</li>
+ * </ul>
+ * Random inputs are drawn in <tt>@Setup</tt>, outside the measured region.
+ * The open score includes building the grid, since every invocation needs
+ * a new one; its <tt>gc.alloc.rate.norm</tt> is the grid's footprint.
+ * <p>
+ * JMH refuses benchmarks in the default package, and a named package cannot
+ * see the assignment classes, so the benchmarks drive them through the
+ * <tt>Target</tt> interfaces below, implemented by the default-package
+ * <tt>PercolationBenchmarkTarget</tt>. It is loaded once per fork; the
+ * measured calls are plain interface calls with a single receiver type.
+ * <p>
+ * Build and run from wk1/jmh (see pom.xml):
+ *         mvn -B package
+ *         mvn -B exec:exec -Djmh.args="-prof gc"
+ * N=10000 needs a few GB of heap per fork; add e.g. <tt>-jvmArgs -Xmx4g</tt>
+ * or restrict N with <tt>-p n=100,1000</tt>.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PercolationBenchmark {
+    /** Fraction of sites opened for the query benchmarks. **/
+    private static final double QUERY_FILL = 0.6;
+
+    /** Default-package implementation of <tt>Target</tt>. **/
+    private static final String TARGET = "PercolationBenchmarkTarget";
+
+    /**
+     * Factory for the code under test.
+     */
+    public interface Target {
+        /**
+         * @param engine a <tt>PercolationStats.Engine</tt> name
+         * @param backend a <tt>UnionFind.Backend</tt> name
+         * @param n the grid size
+         * @return an empty NxN grid
+         */
+        Grid create(String engine, String backend, int n);
+
+        /**
+         * @param engine a <tt>PercolationStats.Engine</tt> name
+         * @param backend a <tt>UnionFind.Backend</tt> name
+         * @param sampling a <tt>PercolationStats.Sampling</tt> name
+         * @param n the grid size
+         * @return single trials of that configuration
+         */
+        Trial trials(String engine, String backend, String sampling, int n);
+    }
+
+    /**
+     * A <tt>PercolationSystem</tt>.
+     */
+    public interface Grid {
+        /**
+         * @param i row, from 1
+         * @param j column, from 1
+         */
+        void open(int i, int j);
+
+        /**
+         * @param i row, from 1
+         * @param j column, from 1
+         * @return is site (i, j) full?
+         */
+        boolean isFull(int i, int j);
+
+        /**
+         * @return does the system percolate?
+         */
+        boolean percolates();
+    }
+
+    /**
+     * Single <tt>PercolationStats</tt> trials.
+     */
+    public interface Trial {
+        /**
+         * Runs the next trial, on a fresh random stream.
+         * @return open sites when the trial first percolated
+         */
+        int run();
+    }
+
+    /**
+     * @return the <tt>Target</tt> implementation
+     */
+    static Target target() {
+        try {
+            return (Target) Class.forName(TARGET).newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("cannot load " + TARGET, e);
+        }
+    }
+
+    /**
+     * Parameters shared by all benchmarks.
+     */
+    @State(Scope.Thread)
+    public abstract static class Config {
+        /** Grid size N. **/
+        @Param({"100", "300", "1000", "3000", "10000"})
+        public int n;
+
+        /** Percolation engine. **/
+        @Param({"CLASSIC", "COMPACT"})
+        public String engine;
+
+        /** Union-find backend. **/
+        @Param({"ALGS4", "GRID"})
+        public String backend;
+
+        /**
+         * @param seed random seed
+         * @return the N^2 site indices in a random order
+         */
+        int[] siteOrder(long seed) {
+            int[] order = new int[n * n];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            SplittableRandom random = new SplittableRandom(seed);
+            for (int i = order.length - 1; i > 0; i--) {
+                int r = random.nextInt(i + 1);
+                int swap = order[i];
+                order[i] = order[r];
+                order[r] = swap;
+            }
+            return order;
+        }
+    }
+
+    /**
+     * An empty grid per invocation, and the order to open it in.
+     */
+    @State(Scope.Thread)
+    public static class EmptyGrid extends Config {
+        /** Builds the grids. **/
+        Target target;
+
+        /** Sites in opening order. **/
+        int[] order;
+
+        /** The grid to fill. **/
+        Grid grid;
+
+        /**
+         * Draws the opening order.
+         */
+        @Setup(Level.Trial)
+        public void shuffle() {
+            target = target();
+            order = siteOrder(1);
+        }
+
+        /**
+         * Builds the next grid.
+         */
+        @Setup(Level.Invocation)
+        public void create() {
+            grid = null; // let the previous grid go before allocating
+            grid = target.create(engine, backend, n);
+        }
+    }
+
+    /**
+     * A grid opened to <tt>QUERY_FILL</tt>, and a random query sequence.
+     */
+    @State(Scope.Thread)
+    public static class FilledGrid extends Config {
+        /** The grid under query. **/
+        Grid grid;
+
+        /** Sites to query, in order. **/
+        int[] queries;
+
+        /** Next entry of <tt>queries</tt>. **/
+        int next;
+
+        /**
+         * Opens the grid and draws the queries.
+         */
+        @Setup(Level.Trial)
+        public void fill() {
+            int[] order = siteOrder(1);
+            grid = target().create(engine, backend, n);
+            int opened = (int) (QUERY_FILL * order.length);
+            for (int k = 0; k < opened; k++) {
+                grid.open(1 + order[k] / n, 1 + order[k] % n);
+            }
+            queries = siteOrder(2);
+        }
+
+        /**
+         * @return the next site to query, cycling through <tt>queries</tt>
+         */
+        int nextQuery() {
+            int site = queries[next];
+            next = next + 1 == queries.length ? 0 : next + 1;
+            return site;
+        }
+    }
+
+    /**
+     * Single trials of one configuration.
+     */
+    @State(Scope.Thread)
+    public static class Trials extends Config {
+        /** How trials draw sites. **/
+        @Param({"SHUFFLE"})
+        public String sampling;
+
+        /** The trials. **/
+        Trial trial;
+
+        /**
+         * Builds the run configuration.
+         */
+        @Setup(Level.Trial)
+        public void configure() {
+            trial = target().trials(engine, backend, sampling, n);
+        }
+    }
+
+    /**
+     * Opens every site of an empty grid.
+     * @param state the grid and opening order
+     * @return whether the full grid percolates
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public boolean open(EmptyGrid state) {
+        Grid grid = state.grid;
+        int n = state.n;
+        for (int site : state.order) {
+            grid.open(1 + site / n, 1 + site % n);
+        }
+        return grid.percolates();
+    }
+
+    /**
+     * Queries one site.
+     * @param state the filled grid
+     * @param blackhole consumes the result
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void isFull(FilledGrid state, Blackhole blackhole) {
+        int site = state.nextQuery();
+        blackhole.consume(state.grid.isFull(1 + site / state.n,
+                                            1 + site % state.n));
+    }
+
+    /**
+     * Asks whether the grid percolates.
+     * @param state the filled grid
+     * @param blackhole consumes the result
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void percolates(FilledGrid state, Blackhole blackhole) {
+        blackhole.consume(state.grid.percolates());
+    }
+
+    /**
+     * Runs the next trial to the percolation threshold.
+     * @param state the trial configuration
+     * @param blackhole consumes the open site count
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void trial(Trials state, Blackhole blackhole) {
+        blackhole.consume(state.trial.run());
+    }
+}
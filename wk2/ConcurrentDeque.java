@@ -0,0 +1,137 @@
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ *The <tt>ConcurrentDeque</tt> class is a thread-safe, lock-free variant of
+ *<tt>Deque</tt>, for use as a task buffer shared by producer and consumer
+ *threads. It keeps the <tt>Deque</tt> API, plus non-throwing pollFirst()
+ *and pollLast(), on top of <tt>java.util.concurrent.ConcurrentLinkedDeque</tt>.
+ * <p>
+ * The underlying deque is a doubly linked list changed only by
+ * compare-and-set, in the line of Sundell and Tsigas' lock-free deque:
+ * adding links one node with a CAS at its end, removing CASes the end
+ * node's item to null and allocates nothing, and the two ends are
+ * separate CAS targets. No operation waits for another thread.
+ * <p>
+ * size() walks the list, so it is O(n), and iteration is weakly
+ * consistent: both see each item that stays in the deque throughout, and
+ * may or may not see concurrent changes.
+ * <p>
+ * Reference:
+ * http://coursera.cs.princeton.edu/algs4/assignments/queues.html
+ * H. Sundell, P. Tsigas, Lock-free deques and doubly linked lists,
+ * J. Parallel Distrib. Comput. 68 (2008).
+ * @param <Item>
+ */
+public class ConcurrentDeque<Item> implements Iterable<Item> {
+
+    /** the items, front to end. **/
+    private final ConcurrentLinkedDeque<Item> items = new ConcurrentLinkedDeque<Item>();
+
+    /**
+     *  is the deque empty?
+     * @return
+     */
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    /**
+     * return the number of items on the deque. Walks the list, so O(n),
+     * and only exact when no other thread is changing the deque.
+     * @return
+     */
+    public int size() {
+        return items.size();
+    }
+
+    /**
+     * insert the item at the front
+     * @param item
+     */
+    public void addFirst(Item item) {
+        if (null == item) {
+            throw new java.lang.NullPointerException();
+        }
+        items.addFirst(item);
+    }
+
+    /**
+     * insert the item at the end
+     * @param item
+     */
+    public void addLast(Item item) {
+        if (null == item) {
+            throw new java.lang.NullPointerException();
+        }
+        items.addLast(item);
+    }
+
+    /**
+     * delete and return the item at the front
+     * @return
+     */
+    public Item removeFirst() {
+        Item item = pollFirst();
+        if (item == null) {
+            throw new java.util.NoSuchElementException();
+        }
+        return item;
+    }
+
+    /**
+     * delete and return the item at the end
+     * @return
+     */
+    public Item removeLast() {
+        Item item = pollLast();
+        if (item == null) {
+            throw new java.util.NoSuchElementException();
+        }
+        return item;
+    }
+
+    /**
+     * delete and return the item at the front, or null if the deque is
+     * empty. Unlike an isEmpty() check followed by removeFirst(), this is
+     * one atomic step.
+     * @return
+     */
+    public Item pollFirst() {
+        return items.pollFirst();
+    }
+
+    /**
+     * delete and return the item at the end, or null if the deque is
+     * empty.
+     * @return
+     */
+    public Item pollLast() {
+        return items.pollLast();
+    }
+
+    /**
+     *  return a weakly consistent iterator over the items, front to end.
+     *  It never throws ConcurrentModificationException and does not
+     *  support remove().
+     */
+    public Iterator<Item> iterator() {
+        final Iterator<Item> it = items.iterator();
+        return new Iterator<Item>() {
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            public Item next() {
+                return it.next();
+            }
+
+            /**
+             * Not supported.
+             */
+            public void remove() {
+                throw new java.lang.UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -0,0 +1,203 @@
+import static org.junit.Assert.*;
+
+import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.Test;
+
+import edu.princeton.cs.algs4.StdRandom;
+
+/**
+ * Tests for {@link ConcurrentDeque}.
+ */
+public class ConcurrentDequeTest {
+
+    /**
+     * Single-threaded random operations must match <tt>RingDeque</tt>,
+     * including polls from an empty deque and runs that drain one end
+     * into items added at the other.
+     */
+    @Test
+    public void testMatchesSequentialDeque() {
+        StdRandom.setSeed(11);
+        ConcurrentDeque<Integer> deque = new ConcurrentDeque<Integer>();
+        RingDeque<Integer> reference = new RingDeque<Integer>();
+        for (int i = 0; i < 50000; i++) {
+            int op = StdRandom.uniform(4);
+            if (op == 0) {
+                deque.addFirst(i);
+                reference.addFirst(i);
+            } else if (op == 1) {
+                deque.addLast(i);
+                reference.addLast(i);
+            } else if (reference.isEmpty()) {
+                assertNull(op == 2 ? deque.pollFirst() : deque.pollLast());
+            } else if (op == 2) {
+                assertEquals(reference.removeFirst(), deque.removeFirst());
+            } else {
+                assertEquals(reference.removeLast(), deque.removeLast());
+            }
+            assertEquals(reference.size(), deque.size());
+        }
+        Iterator<Integer> it = deque.iterator();
+        for (Integer item : reference) {
+            assertTrue(it.hasNext());
+            assertEquals(item, it.next());
+        }
+        assertFalse(it.hasNext());
+    }
+
+    /**
+     * Test method for {@link ConcurrentDeque#removeFirst()} on empty.
+     */
+    @Test(expected = java.util.NoSuchElementException.class)
+    public void testRemoveFirstEmpty() {
+        new ConcurrentDeque<String>().removeFirst();
+    }
+
+    /**
+     * Producers add distinct items at both ends while consumers take from
+     * both ends; every item must come out exactly once.
+     */
+    @Test
+    public void testStressExactlyOnce() throws InterruptedException {
+        final int producers = 4;
+        final int consumers = 4;
+        final int perProducer = 100000;
+        final int total = producers * perProducer;
+        final ConcurrentDeque<Integer> deque = new ConcurrentDeque<Integer>();
+        final AtomicIntegerArray seen = new AtomicIntegerArray(total);
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch produced = new CountDownLatch(producers);
+        Thread[] threads = new Thread[producers + consumers];
+        for (int p = 0; p < producers; p++) {
+            final int base = p * perProducer;
+            threads[p] = new Thread(new Runnable() {
+                public void run() {
+                    await(start);
+                    for (int i = 0; i < perProducer; i++) {
+                        if ((i & 1) == 0) {
+                            deque.addFirst(base + i);
+                        } else {
+                            deque.addLast(base + i);
+                        }
+                    }
+                    produced.countDown();
+                }
+            });
+        }
+        for (int c = 0; c < consumers; c++) {
+            final boolean first = (c & 1) == 0;
+            threads[producers + c] = new Thread(new Runnable() {
+                public void run() {
+                    await(start);
+                    while (true) {
+                        Integer item = first ? deque.pollFirst() : deque.pollLast();
+                        if (item != null) {
+                            seen.incrementAndGet(item);
+                        } else if (produced.getCount() == 0 && deque.isEmpty()) {
+                            return;
+                        }
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(deque.isEmpty());
+        for (int i = 0; i < total; i++) {
+            assertEquals("item " + i, 1, seen.get(i));
+        }
+    }
+
+    /**
+     * Every thread adds and polls at both ends, so removals at either end
+     * race with insertions at both. Nothing is lost or duplicated.
+     */
+    @Test
+    public void testMixedEndsExactlyOnce() throws InterruptedException {
+        final int threads = 4;
+        final int perThread = 100000;
+        final int total = threads * perThread;
+        final ConcurrentDeque<Integer> deque = new ConcurrentDeque<Integer>();
+        final AtomicIntegerArray seen = new AtomicIntegerArray(total);
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int base = t * perThread;
+            workers[t] = new Thread(new Runnable() {
+                public void run() {
+                    await(start);
+                    for (int i = 0; i < perThread; i++) {
+                        if ((i & 1) == 0) {
+                            deque.addFirst(base + i);
+                        } else {
+                            deque.addLast(base + i);
+                        }
+                        if ((i % 3) != 0) {
+                            Integer item = (i & 2) == 0 ? deque.pollLast() : deque.pollFirst();
+                            if (item != null) {
+                                seen.incrementAndGet(item);
+                            }
+                        }
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        Integer item;
+        while ((item = deque.pollFirst()) != null) {
+            seen.incrementAndGet(item);
+        }
+        assertTrue(deque.isEmpty());
+        assertEquals(0, deque.size());
+        for (int i = 0; i < total; i++) {
+            assertEquals("item " + i, 1, seen.get(i));
+        }
+    }
+
+    /**
+     * One producer at the end, one consumer at the front: items come out
+     * in the order they went in.
+     */
+    @Test
+    public void testProducerConsumerFifo() throws InterruptedException {
+        final int n = 200000;
+        final ConcurrentDeque<Integer> deque = new ConcurrentDeque<Integer>();
+        Thread producer = new Thread(new Runnable() {
+            public void run() {
+                for (int i = 0; i < n; i++) {
+                    deque.addLast(i);
+                }
+            }
+        });
+        producer.start();
+        int expected = 0;
+        while (expected < n) {
+            Integer item = deque.pollFirst();
+            if (item != null) {
+                assertEquals(expected++, item.intValue());
+            }
+        }
+        producer.join();
+        assertNull(deque.pollLast());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,4 +1,7 @@
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
 import edu.princeton.cs.algs4.StdOut;
 
@@ -16,23 +19,26 @@ import edu.princeton.cs.algs4.StdOut;
 public class Deque<Item> implements Iterable<Item> {
 
     /** pointer to the header element. **/
-    private Node header;
+    private Node<Item> header;
 
     /** pointer to the trailer element. **/
-    private Node trailer;
+    private Node<Item> trailer;
 
     /** Number of items in deck2. **/
     private int numItems;
 
+    /** structural modifications so far; iterators fail fast on a change. **/
+    private int modCount;
+
     /**
      *  construct an empty deck2.
      * @return
      */
     public Deque() {
-        header = new Node();
-        trailer = new Node();
-        header.setNext(trailer);
-        trailer.setPrevious(header);
+        header = new Node<Item>();
+        trailer = new Node<Item>();
+        header.next = trailer;
+        trailer.previous = header;
         numItems = 0;
     } 
 
@@ -60,15 +66,14 @@ public class Deque<Item> implements Iterable<Item> {
         if (null == item) {
             throw new java.lang.NullPointerException();
         }
-        Node newFirst = new Node();
-        newFirst.setItem(item);
-        newFirst.setPrevious(header);
-        newFirst.setNext(header.getNext());
-        header.getNext().setPrevious(newFirst);
-        header.setNext(newFirst);
-        
-       
+        Node<Item> newFirst = new Node<Item>();
+        newFirst.item = item;
+        newFirst.previous = header;
+        newFirst.next = header.next;
+        header.next.previous = newFirst;
+        header.next = newFirst;
         numItems++;
+        modCount++;
     } 
 
     /**
@@ -80,14 +85,15 @@ public class Deque<Item> implements Iterable<Item> {
             throw new java.lang.NullPointerException();
         }
        
-        Node newLast = new Node();
-        Node previousLast = trailer.getPrevious();
-        newLast.setPrevious(previousLast);
-        newLast.setNext(trailer);
-        newLast.setItem(item);
-        previousLast.setNext(newLast);
-        trailer.setPrevious(newLast);
+        Node<Item> newLast = new Node<Item>();
+        Node<Item> previousLast = trailer.previous;
+        newLast.previous = previousLast;
+        newLast.next = trailer;
+        newLast.item = item;
+        previousLast.next = newLast;
+        trailer.previous = newLast;
         numItems++;
+        modCount++;
     }
 
     /**
@@ -98,14 +104,15 @@ public class Deque<Item> implements Iterable<Item> {
         if (isEmpty()) {
             throw new java.util.NoSuchElementException();
         }
-        Node previousFirst = header.getNext();
-        Item item = previousFirst.getItem();
-        Node second = previousFirst.getNext();
+        Node<Item> previousFirst = header.next;
+        Item item = previousFirst.item;
+        Node<Item> second = previousFirst.next;
         if (null != second) {
-            header.setNext(second);
-            second.setPrevious(header);
+            header.next = second;
+            second.previous = header;
         }
         numItems--;
+        modCount++;
         return item;
     }          
 
@@ -117,31 +124,182 @@ public class Deque<Item> implements Iterable<Item> {
         if (isEmpty()) {
             throw new java.util.NoSuchElementException();
         }
-        Node tmpLast = trailer.getPrevious();
-        Item item = tmpLast.getItem();
-        Node prev = trailer.getPrevious();
-        if (prev.getPrevious() != null) {
-            trailer.setPrevious(prev.getPrevious());
-            prev.getPrevious().setNext(trailer);
+        Node<Item> tmpLast = trailer.previous;
+        Item item = tmpLast.item;
+        Node<Item> prev = trailer.previous;
+        if (prev.previous != null) {
+            trailer.previous = prev.previous;
+            prev.previous.next = trailer;
         }
         numItems--;
+        modCount++;
         return item;
     }
 
     /**
-     * The Internal data structure for the deck2.
+     * insert the items at the front, keeping their order, so that
+     * items[0] becomes the first item. The new nodes are chained
+     * privately and linked in with one splice; if any item is null
+     * nothing is added.
+     * @param items
+     */
+    public void addAllFirst(Item[] items) {
+        addAllFirst(java.util.Arrays.asList(items));
+    }
+
+    /**
+     * insert the items at the front, keeping their iteration order.
+     * Nothing is added if any item is null.
+     * @param items
+     */
+    public void addAllFirst(Iterable<? extends Item> items) {
+        Deque<Item> block = chain(items);
+        spliceFirst(block);
+    }
+
+    /**
+     * insert the items at the end, keeping their order. Nothing is added
+     * if any item is null.
+     * @param items
+     */
+    public void addAllLast(Item[] items) {
+        addAllLast(java.util.Arrays.asList(items));
+    }
+
+    /**
+     * insert the items at the end, keeping their iteration order.
+     * Nothing is added if any item is null.
+     * @param items
+     */
+    public void addAllLast(Iterable<? extends Item> items) {
+        Deque<Item> block = chain(items);
+        spliceLast(block);
+    }
+
+    /**
+     * Builds the items into a detached deque, so a null item throws
+     * before this deque is touched.
+     * @param items
+     * @return
+     */
+    private Deque<Item> chain(Iterable<? extends Item> items) {
+        Deque<Item> block = new Deque<Item>();
+        for (Item item : items) {
+            block.addLast(item);
+        }
+        return block;
+    }
+
+    /**
+     * move every item of other to the front of this deque, in order, in
+     * constant time. other is left empty.
+     * @param other
+     */
+    public void spliceFirst(Deque<Item> other) {
+        if (other == this) {
+            throw new java.lang.IllegalArgumentException("cannot splice a deque into itself");
+        }
+        if (other.isEmpty()) {
+            return;
+        }
+        Node<Item> first = other.header.next;
+        Node<Item> last = other.trailer.previous;
+        Node<Item> oldFirst = header.next;
+        first.previous = header;
+        header.next = first;
+        last.next = oldFirst;
+        oldFirst.previous = last;
+        numItems += other.numItems;
+        modCount++;
+        other.clear();
+    }
+
+    /**
+     * move every item of other to the end of this deque, in order, in
+     * constant time. other is left empty.
+     * @param other
+     */
+    public void spliceLast(Deque<Item> other) {
+        if (other == this) {
+            throw new java.lang.IllegalArgumentException("cannot splice a deque into itself");
+        }
+        if (other.isEmpty()) {
+            return;
+        }
+        Node<Item> first = other.header.next;
+        Node<Item> last = other.trailer.previous;
+        Node<Item> oldLast = trailer.previous;
+        oldLast.next = first;
+        first.previous = oldLast;
+        last.next = trailer;
+        trailer.previous = last;
+        numItems += other.numItems;
+        modCount++;
+        other.clear();
+    }
+
+    /**
+     * remove up to max items from the front and hand them, in order, to
+     * the consumer. The removed run is unlinked once at the end; if the
+     * consumer throws, only the items it already accepted are removed.
+     * Throws ConcurrentModificationException if the consumer modifies the
+     * deque; the pending run is then left linked, since the nodes it
+     * spans may no longer be the front of the deque.
+     * @param consumer
+     * @param max
+     * @return the number of items removed
+     */
+    public int drainTo(Consumer<? super Item> consumer, int max) {
+        if (null == consumer) {
+            throw new java.lang.NullPointerException();
+        }
+        if (max < 0) {
+            throw new java.lang.IllegalArgumentException("max must be non-negative");
+        }
+        int expectedModCount = modCount;
+        Node<Item> current = header.next;
+        int drained = 0;
+        try {
+            while (drained < max && current != trailer) {
+                consumer.accept(current.item);
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                current = current.next;
+                drained++;
+            }
+        } finally {
+            if (drained > 0 && modCount == expectedModCount) {
+                header.next = current;
+                current.previous = header;
+                numItems -= drained;
+                modCount++;
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * Empties the deque by relinking the sentinels.
+     */
+    private void clear() {
+        header.next = trailer;
+        trailer.previous = header;
+        numItems = 0;
+        modCount++;
+    }
+
+    /**
+     * The Internal data structure for the deck2. Static, so nodes carry no
+     * reference to the deque that created them and can be spliced between
+     * deques. Fields are read directly; there are no accessors on the
+     * traversal paths.
      *
      */
-    private class Node {
+    private static class Node<Item> {
         private Item item;
-        private Node next;
-        private Node previous;
-        public Item getItem() { return item; }
-        public void setItem(Item in) { item = in; }
-        public Node getNext() { return next; }
-        public void setNext(Node in) { next = in; }
-        public Node getPrevious() { return previous; }
-        public void setPrevious(Node in) { previous = in; }
+        private Node<Item> next;
+        private Node<Item> previous;
     }
 
     /**
@@ -153,28 +311,35 @@ public class Deque<Item> implements Iterable<Item> {
 
     private class DequeIterator implements Iterator<Item> {
         /** current node. **/
-        private Node current;
-        
+        private Node<Item> current;
+
+        /** modCount seen at construction. **/
+        private final int expectedModCount;
+
         public DequeIterator() {
-            current = header.getNext();
+            current = header.next;
+            expectedModCount = modCount;
         }
 
         /**
          * 
          */
         public boolean hasNext() {
-            return current.getNext() != null;
+            return current != trailer;
         }
 
         /**
          * 
          */
         public Item next() {
-            if (current.getNext() == null) {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (current == trailer) {
                 throw new java.util.NoSuchElementException();
             }
-            Item item = current.getItem();
-            current  = current.getNext();
+            Item item = current.item;
+            current  = current.next;
             return item;
         }
 
@@ -186,6 +351,90 @@ public class Deque<Item> implements Iterable<Item> {
         }
     }
 
+    /**
+     * perform the action on each item from front to end, walking the
+     * nodes directly. Throws ConcurrentModificationException if the
+     * action modifies the deque.
+     * @param action
+     */
+    @Override
+    public void forEach(Consumer<? super Item> action) {
+        if (null == action) {
+            throw new java.lang.NullPointerException();
+        }
+        int expectedModCount = modCount;
+        for (Node<Item> x = header.next; x != trailer; x = x.next) {
+            action.accept(x.item);
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    /**
+     *  return a sized, ordered, fail-fast spliterator from front to end.
+     *  It does not split; a linked list has no cheap midpoint.
+     */
+    @Override
+    public Spliterator<Item> spliterator() {
+        return new DequeSpliterator();
+    }
+
+    private class DequeSpliterator implements Spliterator<Item> {
+        /** next node to hand out. **/
+        private Node<Item> current = header.next;
+
+        /** items not yet handed out. **/
+        private int remaining = numItems;
+
+        /** modCount seen at construction. **/
+        private final int expectedModCount = modCount;
+
+        public boolean tryAdvance(Consumer<? super Item> action) {
+            if (null == action) {
+                throw new java.lang.NullPointerException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (current == trailer) {
+                return false;
+            }
+            Item item = current.item;
+            current = current.next;
+            remaining--;
+            action.accept(item);
+            return true;
+        }
+
+        public void forEachRemaining(Consumer<? super Item> action) {
+            if (null == action) {
+                throw new java.lang.NullPointerException();
+            }
+            Node<Item> x = current;
+            current = trailer;
+            remaining = 0;
+            for (; x != trailer; x = x.next) {
+                action.accept(x.item);
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        public Spliterator<Item> trySplit() {
+            return null;
+        }
+
+        public long estimateSize() {
+            return remaining;
+        }
+
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.NONNULL;
+        }
+    }
+
     /**
      * Unit testing.
      * @param args
@@ -242,5 +491,19 @@ public class Deque<Item> implements Iterable<Item> {
             StdOut.println(num);
         }
         StdOut.println("Finished.");
+
+        // bulk operations: 1 2 | 4 3 1 | 5 6 7 | 8 9, then drain five
+        Deque<Integer> tail = new Deque<Integer>();
+        tail.addAllLast(java.util.Arrays.asList(8, 9));
+        deck2.addAllLast(new Integer[] {5, 6, 7});
+        deck2.spliceLast(tail);
+        deck2.addAllFirst(new Integer[] {1, 2});
+        int drained = deck2.drainTo(new Consumer<Integer>() {
+            public void accept(Integer num) {
+                StdOut.print(num + " ");
+            }
+        }, 5);
+        StdOut.println("drained=" + drained + " left=" + deck2.size()
+                + " spliced-from=" + tail.size());
     }
 }
@@ -0,0 +1,96 @@
+import static org.junit.Assert.*;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link Deque}.
+ */
+public class DequeTest {
+
+    /**
+     * drainTo hands over and removes the first max items, in order.
+     */
+    @Test
+    public void testDrainTo() {
+        Deque<Integer> deque = filled(10);
+        final StringBuilder seen = new StringBuilder();
+        int drained = deque.drainTo(new Consumer<Integer>() {
+            public void accept(Integer item) {
+                seen.append(item);
+            }
+        }, 4);
+        assertEquals(4, drained);
+        assertEquals("0123", seen.toString());
+        assertEquals(6, deque.size());
+        assertEquals(Integer.valueOf(4), deque.removeFirst());
+    }
+
+    /**
+     * A consumer that modifies the deque gets a
+     * ConcurrentModificationException, and the deque keeps the
+     * consumer's change without a stale unlink on top of it.
+     */
+    @Test
+    public void testDrainToModifiedByConsumer() {
+        final Deque<Integer> deque = filled(10);
+        try {
+            deque.drainTo(new Consumer<Integer>() {
+                public void accept(Integer item) {
+                    if (item == 2) {
+                        deque.removeFirst();
+                    }
+                }
+            }, 5);
+            fail("expected ConcurrentModificationException");
+        } catch (ConcurrentModificationException expected) {
+            // the consumer's removeFirst is the only change
+        }
+        assertEquals(9, deque.size());
+        int count = 0;
+        for (Iterator<Integer> it = deque.iterator(); it.hasNext(); it.next()) {
+            count++;
+        }
+        assertEquals(9, count);
+        assertEquals(Integer.valueOf(1), deque.removeFirst());
+        assertEquals(Integer.valueOf(9), deque.removeLast());
+    }
+
+    /**
+     * If the consumer throws, only the items it accepted before are
+     * removed.
+     */
+    @Test
+    public void testDrainToConsumerThrows() {
+        Deque<Integer> deque = filled(10);
+        try {
+            deque.drainTo(new Consumer<Integer>() {
+                public void accept(Integer item) {
+                    if (item == 3) {
+                        throw new IllegalStateException();
+                    }
+                }
+            }, 5);
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+            // items 0, 1 and 2 were accepted
+        }
+        assertEquals(7, deque.size());
+        assertEquals(Integer.valueOf(3), deque.removeFirst());
+    }
+
+    /**
+     * @param n number of items
+     * @return a deque holding 0 .. n - 1, front to end
+     */
+    private static Deque<Integer> filled(int n) {
+        Deque<Integer> deque = new Deque<Integer>();
+        for (int i = 0; i < n; i++) {
+            deque.addLast(i);
+        }
+        return deque;
+    }
+}
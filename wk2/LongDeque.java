@@ -0,0 +1,205 @@
+import java.util.PrimitiveIterator;
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+
+/**
+ *The <tt>LongDeque</tt> class is a <tt>RingDeque</tt> specialised to
+ *<tt>long</tt>. Items are stored unboxed in a circular <tt>long[]</tt> whose
+ *capacity is always a power of two, so no object is allocated per item;
+ *the only allocation is the array itself when it doubles (when full) or
+ *halves (when a quarter full).
+ * <p>
+ * Iteration goes through a <tt>PrimitiveIterator.OfLong</tt>; call
+ * <tt>nextLong()</tt> (or <tt>forEachRemaining(LongConsumer)</tt>) to stay
+ * unboxed. The class deliberately does not implement <tt>Iterable</tt>, so
+ * a for-each loop cannot box every item by accident.
+ * @see IntDeque
+ */
+public class LongDeque {
+
+    /** smallest capacity the array shrinks to. **/
+    private static final int MIN_CAPACITY = 8;
+
+    /** circular item array; length is a power of two. **/
+    private long[] items;
+
+    /** slot of the front item. **/
+    private int head;
+
+    /** Number of items in the deque. **/
+    private int numItems;
+
+    /**
+     *  construct an empty deque.
+     */
+    public LongDeque() {
+        items = new long[MIN_CAPACITY];
+    }
+
+    /**
+     *  is the deque empty?
+     * @return
+     */
+    public boolean isEmpty()  {
+        return numItems == 0;
+    }
+
+    /**
+     * return the number of items on the deque
+     * @return
+     */
+    public int size()  {
+        return numItems;
+    }
+
+    /**
+     * insert the item at the front
+     * @param item
+     */
+    public void addFirst(long item) {
+        if (numItems == items.length) {
+            resize(2 * items.length);
+        }
+        head = (head - 1) & (items.length - 1);
+        items[head] = item;
+        numItems++;
+    }
+
+    /**
+     * insert the item at the end
+     * @param item
+     */
+    public void addLast(long item) {
+        if (numItems == items.length) {
+            resize(2 * items.length);
+        }
+        items[(head + numItems) & (items.length - 1)] = item;
+        numItems++;
+    }
+
+    /**
+     * delete and return the item at the front
+     * @return
+     */
+    public long removeFirst() {
+        if (isEmpty()) {
+            throw new java.util.NoSuchElementException();
+        }
+        long item = items[head];
+        head = (head + 1) & (items.length - 1);
+        numItems--;
+        shrinkIfSparse();
+        return item;
+    }
+
+    /**
+     * delete and return the item at the end
+     * @return
+     */
+    public long removeLast() {
+        if (isEmpty()) {
+            throw new java.util.NoSuchElementException();
+        }
+        long item = items[(head + numItems - 1) & (items.length - 1)];
+        numItems--;
+        shrinkIfSparse();
+        return item;
+    }
+
+    /**
+     * Halves the array once it is a quarter full.
+     */
+    private void shrinkIfSparse() {
+        if (items.length > MIN_CAPACITY && numItems <= items.length / 4) {
+            resize(items.length / 2);
+        }
+    }
+
+    /**
+     * Copies the items, front first, into a new array of the given
+     * power-of-two capacity. At most two block copies.
+     * @param capacity
+     */
+    private void resize(int capacity) {
+        long[] temp = new long[capacity];
+        int firstRun = Math.min(numItems, items.length - head);
+        System.arraycopy(items, head, temp, 0, firstRun);
+        System.arraycopy(items, 0, temp, firstRun, numItems - firstRun);
+        items = temp;
+        head = 0;
+    }
+
+    /**
+     *  return an unboxed iterator over items in order from front to end
+     */
+    public PrimitiveIterator.OfLong iterator()  {
+        return new RingIterator();
+    }
+
+    private class RingIterator implements PrimitiveIterator.OfLong {
+        /** logical position of the next item. **/
+        private int current;
+
+        /**
+         *
+         */
+        public boolean hasNext() {
+            return current < numItems;
+        }
+
+        /**
+         *
+         */
+        public long nextLong() {
+            if (current >= numItems) {
+                throw new java.util.NoSuchElementException();
+            }
+            return items[(head + current++) & (items.length - 1)];
+        }
+
+        /**
+         * Not supported.
+         */
+        public void remove() {
+            throw new java.lang.UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Unit testing.
+     * @param args
+     */
+    public static void main(String[] args)  {
+        // wrap-around, growth and shrink against RingDeque
+        LongDeque longs = new LongDeque();
+        RingDeque<Long> ring = new RingDeque<Long>();
+        int mismatches = 0;
+        for (int i = 0; i < 100000; i++) {
+            int op = StdRandom.uniform(5);
+            if (op == 0) {
+                longs.addFirst(i * 0x100000001L);
+                ring.addFirst(i * 0x100000001L);
+            } else if (op == 1 || op == 2) {
+                longs.addLast(i * 0x100000001L);
+                ring.addLast(i * 0x100000001L);
+            } else if (!ring.isEmpty()) {
+                long a = op == 3 ? longs.removeFirst() : longs.removeLast();
+                long b = op == 3 ? ring.removeFirst() : ring.removeLast();
+                if (a != b) {
+                    mismatches++;
+                }
+            }
+            if (longs.size() != ring.size()) {
+                mismatches++;
+            }
+        }
+        PrimitiveIterator.OfLong a = longs.iterator();
+        for (long b : ring) {
+            if (!a.hasNext() || a.nextLong() != b) {
+                mismatches++;
+            }
+        }
+        StdOut.println("mismatches=" + mismatches + " size=" + longs.size());
+    }
+}
@@ -1,4 +1,7 @@
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
 import edu.princeton.cs.algs4.StdOut;
 import edu.princeton.cs.algs4.StdRandom;
@@ -19,19 +22,57 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
     /** internal data array. **/
     private Item[] s;
 
-    /** Number of items in queue. **/
+    /** Number of items in queue; s[0..numItems) is always dense. **/
     private int numItems;
 
-    /** Number of items in queue. **/
-    private int lastEnd;
+    /** capacity the array never shrinks below. **/
+    private final int minCapacity;
+
+    /** factor the capacity grows by when full and shrinks by when sparse. **/
+    private final double growthFactor;
+
+    /** load (size / capacity) at or below which the array shrinks. **/
+    private final double shrinkThreshold;
+
+    /** structural modifications so far; iterators fail fast on a change. **/
+    private int modCount;
 
     /**
-     * Construct an empty randomized queue
+     * Construct an empty randomized queue that doubles when full and halves
+     * when a quarter full.
      */
     public RandomizedQueue() {
-        s = initArray(2);
-        lastEnd = 0;
-    } 
+        this(2, 2.0, 0.25);
+    }
+
+    /**
+     * Construct an empty randomized queue with the given resize policy. The
+     * array grows by growthFactor when full and shrinks by it once the load
+     * falls to shrinkThreshold, never below initialCapacity. Requiring
+     * shrinkThreshold &lt; 1 / growthFactor leaves the shrunk array with
+     * room to spare, so alternating enqueue and dequeue at the boundary
+     * cannot thrash. A threshold of 0 never shrinks, which makes dequeue
+     * allocation-free.
+     * @param initialCapacity
+     * @param growthFactor
+     * @param shrinkThreshold
+     */
+    public RandomizedQueue(int initialCapacity, double growthFactor, double shrinkThreshold) {
+        if (initialCapacity < 1) {
+            throw new java.lang.IllegalArgumentException("initialCapacity must be positive");
+        }
+        if (!(growthFactor > 1.0)) {
+            throw new java.lang.IllegalArgumentException("growthFactor must exceed 1");
+        }
+        if (!(shrinkThreshold >= 0.0 && shrinkThreshold * growthFactor < 1.0)) {
+            throw new java.lang.IllegalArgumentException(
+                    "shrinkThreshold must be in [0, 1 / growthFactor)");
+        }
+        this.minCapacity = initialCapacity;
+        this.growthFactor = growthFactor;
+        this.shrinkThreshold = shrinkThreshold;
+        s = initArray(initialCapacity);
+    }
 
     /**
      * is the queue empty?
@@ -57,11 +98,12 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         if (null == item) {
             throw new java.lang.NullPointerException();
         }
-        s[lastEnd++] = item; // stomp last end value if remove has fired
-        numItems++;
-        if (numItems > 0 && numItems == s.length) {
-            resize(2*numItems);
+        if (numItems == s.length) {
+            long grown = (long) (s.length * growthFactor);
+            resize((int) Math.min(Integer.MAX_VALUE - 8, Math.max(s.length + 1L, grown)));
         }
+        s[numItems++] = item;
+        modCount++;
     }
 
     /**
@@ -74,12 +116,13 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         }
         int rand = selectRandomNode();
         Item item = s[rand];
-        s[rand] = s[lastEnd-1];
-        s[lastEnd-1] = null;
+        s[rand] = s[numItems-1];
+        s[numItems-1] = null;
         numItems--;
-        lastEnd--;
-        if (numItems > 0 && numItems == s.length/4) {
-            resize(s.length/2);
+        modCount++;
+        if (shrinkThreshold > 0 && s.length > minCapacity
+                && numItems <= s.length * shrinkThreshold) {
+            resize(Math.max(minCapacity, (int) (s.length / growthFactor)));
         }
         return item;
 
@@ -96,6 +139,74 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         return s[selectRandomNode()];
     }
 
+    /**
+     * put k distinct random items (without replacement) in out[0..k),
+     * leaving them on the queue. One pass of a partial Fisher-Yates
+     * shuffle over the front of the array; nothing is allocated. The
+     * reordering invalidates open iterators.
+     * @param k
+     * @param out
+     */
+    public void sample(int k, Item[] out) {
+        checkBatch(k, out);
+        for (int i = 0; i < k; i++) {
+            int r = i + StdRandom.uniform(numItems - i);
+            Item swap = s[r];
+            s[r] = s[i];
+            s[i] = swap;
+            out[i] = swap;
+        }
+        if (k > 0) {
+            modCount++;
+        }
+    }
+
+    /**
+     * delete k random items and put them in out[0..k). Each step moves the
+     * shrinking tail into the hole, as dequeue() does, and the array is
+     * resized at most once, after the whole batch.
+     * @param k
+     * @param out
+     */
+    public void dequeue(int k, Item[] out) {
+        checkBatch(k, out);
+        for (int i = 0; i < k; i++) {
+            int last = numItems - 1 - i;
+            int r = StdRandom.uniform(last + 1);
+            out[i] = s[r];
+            s[r] = s[last];
+            s[last] = null;
+        }
+        if (k == 0) {
+            return;
+        }
+        numItems -= k;
+        modCount++;
+        int capacity = s.length;
+        while (shrinkThreshold > 0 && capacity > minCapacity
+                && numItems <= capacity * shrinkThreshold) {
+            capacity = Math.max(minCapacity, (int) (capacity / growthFactor));
+        }
+        if (capacity != s.length) {
+            resize(capacity);
+        }
+    }
+
+    /**
+     * Validates a batch request for k items into out.
+     */
+    private void checkBatch(int k, Item[] out) {
+        if (null == out) {
+            throw new java.lang.NullPointerException();
+        }
+        if (k < 0 || k > out.length) {
+            throw new java.lang.IllegalArgumentException("k must be in [0, out.length]: " + k);
+        }
+        if (k > numItems) {
+            throw new java.util.NoSuchElementException();
+        }
+    }
+
     /**
      * Fetches random element in o(N) time.
      * TODO needs to be constant time
@@ -107,20 +218,30 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
     }
 
     /**
-     * Rebuilds array. Omits nulls.
+     * shrink the array to exactly the number of items. The next enqueue
+     * grows it again by the growth factor.
+     */
+    public void trimToSize() {
+        if (s.length != numItems) {
+            resize(numItems);
+        }
+    }
+
+    /**
+     * @return the length of the backing array
+     */
+    int capacity() {
+        return s.length;
+    }
+
+    /**
+     * Moves the dense prefix s[0..numItems) into a new array.
      * @param capacity
      */
     private void resize(int capacity) {
         Item[] temp = initArray(capacity);
-        int count = 0;
-        // build sans removals
-        for (int i = 0; i < s.length; i++) {
-            if (null != s[i]) {
-                temp[count++] = s[i];
-            }
-        }
+        System.arraycopy(s, 0, temp, 0, numItems);
         s = temp;
-        lastEnd = count;
     }
 
     //@SuppressWarnings("unchecked")
@@ -135,36 +256,68 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         return new RandomizedIterator();
     }  
 
+    /**
+     * Returns a shuffled copy of the live items, so each iterator has its
+     * own order and never disturbs the queue or another iterator.
+     * @return
+     */
+    private Item[] shuffledCopy() {
+        Item[] copy = initArray(numItems);
+        System.arraycopy(s, 0, copy, 0, numItems);
+        shuffle(copy, numItems);
+        return copy;
+    }
+
+    /**
+     * Knuth shuffle of a[0..n).
+     * @param a
+     * @param n
+     */
+    private static void shuffle(Object[] a, int n) {
+        for (int i = n - 1; i > 0; i--) {
+            int r = StdRandom.uniform(i + 1);
+            Object swap = a[r];
+            a[r] = a[i];
+            a[i] = swap;
+        }
+    }
+
+    /**
+     * Iterates in an order of its own, drawn lazily: a Fisher-Yates
+     * shuffle of the indices 0..n-1 that only records the positions it
+     * has disturbed. Construction is O(1), and taking the first k items
+     * costs O(k) time and space. The queue's array is only read.
+     */
     private class RandomizedIterator implements Iterator<Item> {
-        /** current node. **/
-        private Item[] randomizedArray;
+        /** lazily shuffled indices into s. **/
+        private final SparsePermutation order;
 
-        private int currentIndex = 0;
+        /** modCount seen at construction. **/
+        private final int expectedModCount;
 
         public RandomizedIterator() {
-            // initial a random array
-            resize(numItems);
-            randomizedArray = s;
-            StdRandom.shuffle(randomizedArray);
-
+            order = new SparsePermutation(numItems);
+            expectedModCount = modCount;
         }
 
         /**
          * 
          */
         public boolean hasNext() {
-            return (currentIndex < randomizedArray.length);
+            return order.hasNext();
         }
 
         /**
          * 
          */
         public Item next() {
-            if (currentIndex >= randomizedArray.length) {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!order.hasNext()) {
                 throw new java.util.NoSuchElementException();
             }
-            Item nextItem = randomizedArray[currentIndex++];
-            return nextItem;
+            return s[order.next()];
         }
 
         /** 
@@ -175,6 +328,199 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         }
     }
 
+    /**
+     * A uniformly random permutation of 0..n-1 produced one element at a
+     * time. Step i swaps position i with a random position r in [i, n),
+     * as Fisher-Yates does, but the virtual array is identity everywhere
+     * except the positions stored in a small open-addressing int map, so
+     * no O(n) array is ever allocated.
+     */
+    private static final class SparsePermutation {
+        /** permutation length. **/
+        private final int n;
+
+        /** elements handed out so far. **/
+        private int i;
+
+        /** keys stored as position + 1, so 0 marks an empty slot. **/
+        private int[] keys = new int[16];
+
+        /** value at the position held in the matching key slot. **/
+        private int[] values = new int[16];
+
+        /** occupied slots. **/
+        private int used;
+
+        SparsePermutation(int n) {
+            this.n = n;
+        }
+
+        boolean hasNext() {
+            return i < n;
+        }
+
+        int next() {
+            int r = i + StdRandom.uniform(n - i);
+            int picked = get(r);
+            if (r != i) {
+                put(r, get(i));
+            }
+            i++;
+            return picked;
+        }
+
+        /** value at position p; identity if never swapped. **/
+        private int get(int p) {
+            int mask = keys.length - 1;
+            for (int slot = hash(p) & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == p + 1) {
+                    return values[slot];
+                }
+            }
+            return p;
+        }
+
+        private void put(int p, int value) {
+            int mask = keys.length - 1;
+            int slot = hash(p) & mask;
+            for (; keys[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == p + 1) {
+                    values[slot] = value;
+                    return;
+                }
+            }
+            keys[slot] = p + 1;
+            values[slot] = value;
+            if (++used > keys.length / 2) {
+                rehash();
+            }
+        }
+
+        /** doubles the table, keeping it at most half full. **/
+        private void rehash() {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new int[2 * oldKeys.length];
+            values = new int[2 * oldKeys.length];
+            int mask = keys.length - 1;
+            for (int k = 0; k < oldKeys.length; k++) {
+                if (oldKeys[k] != 0) {
+                    int slot = hash(oldKeys[k] - 1) & mask;
+                    while (keys[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[k];
+                    values[slot] = oldValues[k];
+                }
+            }
+        }
+
+        private static int hash(int p) {
+            int h = p * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+
+    /**
+     * perform the action on each item in uniformly random order. Walks a
+     * lazily drawn permutation, as the iterator does, so the queue's array
+     * is only read and open iterators stay valid; the permutation's table
+     * grows with the number of items visited. Throws
+     * ConcurrentModificationException if the action modifies the queue.
+     * @param action
+     */
+    @Override
+    public void forEach(Consumer<? super Item> action) {
+        if (null == action) {
+            throw new java.lang.NullPointerException();
+        }
+        int expectedModCount = modCount;
+        SparsePermutation order = new SparsePermutation(numItems);
+        while (order.hasNext()) {
+            action.accept(s[order.next()]);
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    /**
+     *  return a sized, fail-fast spliterator over a random order. It splits
+     *  in halves, like an array spliterator.
+     */
+    @Override
+    public Spliterator<Item> spliterator() {
+        return new RandomizedSpliterator(shuffledCopy(), 0, numItems, modCount);
+    }
+
+    private class RandomizedSpliterator implements Spliterator<Item> {
+        /** shuffled items shared by all splits. **/
+        private final Item[] items;
+
+        /** next index to hand out. **/
+        private int index;
+
+        /** one past the last index. **/
+        private final int fence;
+
+        /** modCount seen when the root spliterator was made. **/
+        private final int expectedModCount;
+
+        RandomizedSpliterator(Item[] items, int index, int fence, int expectedModCount) {
+            this.items = items;
+            this.index = index;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        public boolean tryAdvance(Consumer<? super Item> action) {
+            if (null == action) {
+                throw new java.lang.NullPointerException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (index >= fence) {
+                return false;
+            }
+            action.accept(items[index++]);
+            return true;
+        }
+
+        public void forEachRemaining(Consumer<? super Item> action) {
+            if (null == action) {
+                throw new java.lang.NullPointerException();
+            }
+            int i = index;
+            index = fence;
+            for (; i < fence; i++) {
+                action.accept(items[i]);
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        public Spliterator<Item> trySplit() {
+            int mid = (index + fence) >>> 1;
+            if (mid <= index) {
+                return null;
+            }
+            Spliterator<Item> prefix =
+                    new RandomizedSpliterator(items, index, mid, expectedModCount);
+            index = mid;
+            return prefix;
+        }
+
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        public int characteristics() {
+            return Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL;
+        }
+    }
+
     /**
      * unit testing
      * @param args
@@ -0,0 +1,108 @@
+import static org.junit.Assert.*;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link RandomizedQueue}.
+ */
+public class RandomizedQueueTest {
+
+    /**
+     * With shrinkThreshold 0, draining the queue one item at a time never
+     * resizes the array.
+     */
+    @Test
+    public void testZeroThresholdDequeueNeverShrinks() {
+        RandomizedQueue<Integer> q = new RandomizedQueue<Integer>(2, 2.0, 0.0);
+        for (int i = 0; i < 64; i++) {
+            q.enqueue(i);
+        }
+        int capacity = q.capacity();
+        while (!q.isEmpty()) {
+            q.dequeue();
+            assertEquals(capacity, q.capacity());
+        }
+    }
+
+    /**
+     * With shrinkThreshold 0, a batch dequeue of every item never resizes
+     * the array.
+     */
+    @Test
+    public void testZeroThresholdBatchDequeueNeverShrinks() {
+        RandomizedQueue<Integer> q = new RandomizedQueue<Integer>(2, 2.0, 0.0);
+        for (int i = 0; i < 64; i++) {
+            q.enqueue(i);
+        }
+        int capacity = q.capacity();
+        q.dequeue(64, new Integer[64]);
+        assertTrue(q.isEmpty());
+        assertEquals(capacity, q.capacity());
+    }
+
+    /**
+     * The default policy still shrinks once the queue is a quarter full.
+     */
+    @Test
+    public void testDefaultThresholdShrinks() {
+        RandomizedQueue<Integer> q = new RandomizedQueue<Integer>();
+        for (int i = 0; i < 64; i++) {
+            q.enqueue(i);
+        }
+        int capacity = q.capacity();
+        q.dequeue(64, new Integer[64]);
+        assertTrue(q.capacity() < capacity);
+    }
+
+    /**
+     * forEach only reads the queue: an iterator opened before it still
+     * returns every item exactly once afterwards.
+     */
+    @Test
+    public void testForEachLeavesIteratorsValid() {
+        RandomizedQueue<Integer> q = new RandomizedQueue<Integer>();
+        for (int i = 0; i < 100; i++) {
+            q.enqueue(i);
+        }
+        Iterator<Integer> it = q.iterator();
+        boolean[] seenByIterator = new boolean[100];
+        for (int k = 0; k < 50; k++) {
+            seenByIterator[it.next()] = true;
+        }
+        final int[] visits = new int[100];
+        q.forEach(new Consumer<Integer>() {
+            public void accept(Integer item) {
+                visits[item]++;
+            }
+        });
+        while (it.hasNext()) {
+            int item = it.next();
+            assertFalse("duplicate " + item, seenByIterator[item]);
+            seenByIterator[item] = true;
+        }
+        for (int i = 0; i < 100; i++) {
+            assertTrue(seenByIterator[i]);
+            assertEquals(1, visits[i]);
+        }
+    }
+
+    /**
+     * An action that modifies the queue is caught.
+     */
+    @Test(expected = ConcurrentModificationException.class)
+    public void testForEachModifiedByAction() {
+        final RandomizedQueue<Integer> q = new RandomizedQueue<Integer>();
+        for (int i = 0; i < 10; i++) {
+            q.enqueue(i);
+        }
+        q.forEach(new Consumer<Integer>() {
+            public void accept(Integer item) {
+                q.enqueue(item);
+            }
+        });
+    }
+}
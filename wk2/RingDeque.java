@@ -0,0 +1,227 @@
+import java.util.Iterator;
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+
+/**
+ *The <tt>RingDeque</tt> class is an array-backed alternative to
+ *<tt>Deque</tt> with the same API. Items live in a circular array whose
+ *capacity is always a power of two, so a logical position is turned into
+ *an array slot with a mask instead of a modulo, and no node is allocated
+ *per item. The array doubles when full and halves when a quarter full.
+ *  items[head] -> items[head + 1 & mask] -> ... -> items[tail - 1 & mask]
+ * <p>
+ * Reference:
+ * http://coursera.cs.princeton.edu/algs4/assignments/queues.html
+ * @param <Item>
+ */
+public class RingDeque<Item> implements Iterable<Item> {
+
+    /** smallest capacity the array shrinks to. **/
+    private static final int MIN_CAPACITY = 8;
+
+    /** circular item array; length is a power of two. **/
+    private Item[] items;
+
+    /** slot of the front item. **/
+    private int head;
+
+    /** Number of items in the deque. **/
+    private int numItems;
+
+    /**
+     *  construct an empty deque.
+     */
+    public RingDeque() {
+        items = initArray(MIN_CAPACITY);
+    }
+
+    /**
+     *  is the deque empty?
+     * @return
+     */
+    public boolean isEmpty()  {
+        return numItems == 0;
+    }
+
+    /**
+     * return the number of items on the deque
+     * @return
+     */
+    public int size()  {
+        return numItems;
+    }
+
+    /**
+     * insert the item at the front
+     * @param item
+     */
+    public void addFirst(Item item) {
+        if (null == item) {
+            throw new java.lang.NullPointerException();
+        }
+        if (numItems == items.length) {
+            resize(2 * items.length);
+        }
+        head = (head - 1) & (items.length - 1);
+        items[head] = item;
+        numItems++;
+    }
+
+    /**
+     * insert the item at the end
+     * @param item
+     */
+    public void addLast(Item item) {
+        if (null == item) {
+            throw new java.lang.NullPointerException();
+        }
+        if (numItems == items.length) {
+            resize(2 * items.length);
+        }
+        items[(head + numItems) & (items.length - 1)] = item;
+        numItems++;
+    }
+
+    /**
+     * delete and return the item at the front
+     * @return
+     */
+    public Item removeFirst() {
+        if (isEmpty()) {
+            throw new java.util.NoSuchElementException();
+        }
+        Item item = items[head];
+        items[head] = null; // avoid loitering
+        head = (head + 1) & (items.length - 1);
+        numItems--;
+        shrinkIfSparse();
+        return item;
+    }
+
+    /**
+     * delete and return the item at the end
+     * @return
+     */
+    public Item removeLast() {
+        if (isEmpty()) {
+            throw new java.util.NoSuchElementException();
+        }
+        int last = (head + numItems - 1) & (items.length - 1);
+        Item item = items[last];
+        items[last] = null; // avoid loitering
+        numItems--;
+        shrinkIfSparse();
+        return item;
+    }
+
+    /**
+     * Halves the array once it is a quarter full.
+     */
+    private void shrinkIfSparse() {
+        if (items.length > MIN_CAPACITY && numItems <= items.length / 4) {
+            resize(items.length / 2);
+        }
+    }
+
+    /**
+     * Copies the items, front first, into a new array of the given
+     * power-of-two capacity. At most two block copies.
+     * @param capacity
+     */
+    private void resize(int capacity) {
+        Item[] temp = initArray(capacity);
+        int firstRun = Math.min(numItems, items.length - head);
+        System.arraycopy(items, head, temp, 0, firstRun);
+        System.arraycopy(items, 0, temp, firstRun, numItems - firstRun);
+        items = temp;
+        head = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Item[] initArray(int size) {
+        return (Item[]) new Object[size];
+    }
+
+    /**
+     *  return an iterator over items in order from front to end
+     */
+    public Iterator<Item> iterator()  {
+        return new RingIterator();
+    }
+
+    private class RingIterator implements Iterator<Item> {
+        /** logical position of the next item. **/
+        private int current;
+
+        /**
+         *
+         */
+        public boolean hasNext() {
+            return current < numItems;
+        }
+
+        /**
+         *
+         */
+        public Item next() {
+            if (current >= numItems) {
+                throw new java.util.NoSuchElementException();
+            }
+            return items[(head + current++) & (items.length - 1)];
+        }
+
+        /**
+         * Not supported.
+         */
+        public void remove() {
+            throw new java.lang.UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Unit testing.
+     * @param args
+     */
+    public static void main(String[] args)  {
+        RingDeque<String> deck = new RingDeque<String>();
+        deck.addFirst("Love");
+        deck.addLast("You");
+        deck.addFirst("I");
+        deck.addFirst("Hello");
+        for (String s : deck) {
+            StdOut.println(s);
+        }
+
+        // wrap-around, growth and shrink against the linked Deque
+        RingDeque<Integer> ring = new RingDeque<Integer>();
+        Deque<Integer> linked = new Deque<Integer>();
+        int mismatches = 0;
+        for (int i = 0; i < 100000; i++) {
+            int op = StdRandom.uniform(5);
+            if (op == 0) {
+                ring.addFirst(i);
+                linked.addFirst(i);
+            } else if (op == 1 || op == 2) {
+                ring.addLast(i);
+                linked.addLast(i);
+            } else if (!linked.isEmpty()) {
+                int a = op == 3 ? ring.removeFirst() : ring.removeLast();
+                int b = op == 3 ? linked.removeFirst() : linked.removeLast();
+                if (a != b) {
+                    mismatches++;
+                }
+            }
+            if (ring.size() != linked.size()) {
+                mismatches++;
+            }
+        }
+        Iterator<Integer> a = ring.iterator();
+        for (int b : linked) {
+            if (!a.hasNext() || a.next() != b) {
+                mismatches++;
+            }
+        }
+        StdOut.println("mismatches=" + mismatches + " size=" + ring.size());
+    }
+}
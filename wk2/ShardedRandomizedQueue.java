@@ -0,0 +1,353 @@
+import java.util.Iterator;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ *The <tt>ShardedRandomizedQueue</tt> class is a thread-safe
+ *<tt>RandomizedQueue</tt>. Items are spread over a fixed number of
+ *shards, each a dense array guarded by its own lock, so threads working
+ *on different shards never wait for one another. Every thread draws from
+ *its own <tt>SplittableRandom</tt>, split from one root, so there is no
+ *shared random state either.
+ * <p>
+ * enqueue() starts at a random shard and takes the first whose lock is
+ * free, falling back to waiting on the starting shard once every lock has
+ * been found busy. dequeue() and sample() pick shard s with probability
+ * size(s) / size(), reading the per-shard sizes without locking, then lock
+ * that shard and take a uniform item from it. If the shard was emptied in
+ * the meantime they retry. When the unlocked sizes add up to zero they
+ * lock every shard, in index order, and look again before reporting the
+ * queue empty, so poll() only returns null, and dequeue() and sample()
+ * only throw, if the queue really was empty at one instant.
+ * <p>
+ * Uniformity: when no other thread is modifying the queue, every item is
+ * returned with probability exactly 1/n, because
+ * (size(s) / n) * (1 / size(s)) = 1/n. Under concurrent modification the
+ * sizes used to choose the shard can be stale by the operations in flight,
+ * at most one per other thread. With T threads the probability of any
+ * item is therefore within a factor of about (1 +/- T / size(s)) of 1/n,
+ * and the bias vanishes as shards grow. ShardedRandomizedQueueTest
+ * measures both regimes with a chi-square statistic.
+ * <p>
+ * size() and isEmpty() are weakly consistent: they sum the shard sizes
+ * without locking. The iterator returns a shuffled snapshot, copied one
+ * shard at a time, so it is not atomic across shards.
+ * @param <Item>
+ */
+public class ShardedRandomizedQueue<Item> implements Iterable<Item> {
+
+    /** smallest capacity a shard's array shrinks to. **/
+    private static final int MIN_CAPACITY = 8;
+
+    /** the shards. **/
+    private final Shard<Item>[] shards;
+
+    /** source of the per-thread streams. **/
+    private final SplittableRandom root;
+
+    /** each thread's own random stream. **/
+    private final ThreadLocal<SplittableRandom> random = new ThreadLocal<SplittableRandom>() {
+        @Override
+        protected SplittableRandom initialValue() {
+            synchronized (root) {
+                return root.split();
+            }
+        }
+    };
+
+    /**
+     * Construct an empty queue with two shards per available processor.
+     */
+    public ShardedRandomizedQueue() {
+        this(2 * Runtime.getRuntime().availableProcessors(), System.nanoTime());
+    }
+
+    /**
+     * Construct an empty queue with the given number of shards. The seed
+     * fixes the stream of the first thread to draw, then the next, and so
+     * on, so a single-threaded run is reproducible.
+     * @param numShards
+     * @param seed
+     */
+    @SuppressWarnings("unchecked")
+    public ShardedRandomizedQueue(int numShards, long seed) {
+        if (numShards < 1) {
+            throw new java.lang.IllegalArgumentException("numShards must be positive");
+        }
+        shards = (Shard<Item>[]) new Shard<?>[numShards];
+        for (int i = 0; i < numShards; i++) {
+            shards[i] = new Shard<Item>();
+        }
+        root = new SplittableRandom(seed);
+    }
+
+    /**
+     * is the queue empty? Weakly consistent.
+     * @return
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Return the number of items on the queue. Weakly consistent.
+     * @return
+     */
+    public int size() {
+        int total = 0;
+        for (Shard<Item> shard : shards) {
+            total += shard.size;
+        }
+        return total;
+    }
+
+    /**
+     * add the item
+     * @param item
+     */
+    public void enqueue(Item item) {
+        if (null == item) {
+            throw new java.lang.NullPointerException();
+        }
+        int start = random.get().nextInt(shards.length);
+        for (int k = 0; k < shards.length; k++) {
+            Shard<Item> shard = shards[(start + k) % shards.length];
+            if (shard.lock.tryLock()) {
+                try {
+                    shard.add(item);
+                } finally {
+                    shard.lock.unlock();
+                }
+                return;
+            }
+        }
+        Shard<Item> shard = shards[start];
+        shard.lock.lock();
+        try {
+            shard.add(item);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * delete and return a random item
+     * @return
+     */
+    public Item dequeue() {
+        Item item = poll();
+        if (null == item) {
+            throw new java.util.NoSuchElementException();
+        }
+        return item;
+    }
+
+    /**
+     * delete and return a random item, or null if the queue is empty
+     * @return
+     */
+    public Item poll() {
+        return take(true);
+    }
+
+    /**
+     * return (but do not delete) a random item
+     * @return
+     */
+    public Item sample() {
+        Item item = take(false);
+        if (null == item) {
+            throw new java.util.NoSuchElementException();
+        }
+        return item;
+    }
+
+    /**
+     * Picks a shard in proportion to its size, then a uniform item in it.
+     * @param remove
+     * @return the item, or null if the queue was empty
+     */
+    private Item take(boolean remove) {
+        SplittableRandom rnd = random.get();
+        while (true) {
+            int total = size();
+            if (total == 0) {
+                return takeLocked(rnd, remove);
+            }
+            int r = rnd.nextInt(total);
+            Shard<Item> pick = null;
+            for (Shard<Item> shard : shards) {
+                int size = shard.size;
+                if (size > 0) {
+                    pick = shard;
+                    if (r < size) {
+                        break;
+                    }
+                    r -= size;
+                }
+            }
+            if (null == pick) {
+                return takeLocked(rnd, remove);
+            }
+            pick.lock.lock();
+            try {
+                if (pick.size > 0) {
+                    int i = rnd.nextInt(pick.size);
+                    return remove ? pick.remove(i) : pick.items[i];
+                }
+            } finally {
+                pick.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * take() with every shard locked, so the sizes are exact: the slow path
+     * once the queue looks empty. Locks are taken in index order and no
+     * other operation holds two at once, so this cannot deadlock.
+     * @param rnd
+     * @param remove
+     * @return the item, or null if the queue is empty
+     */
+    private Item takeLocked(SplittableRandom rnd, boolean remove) {
+        int locked = 0;
+        try {
+            int total = 0;
+            for (Shard<Item> shard : shards) {
+                shard.lock.lock();
+                locked++;
+                total += shard.size;
+            }
+            if (total == 0) {
+                return null;
+            }
+            int r = rnd.nextInt(total);
+            for (Shard<Item> shard : shards) {
+                if (r < shard.size) {
+                    return remove ? shard.remove(r) : shard.items[r];
+                }
+                r -= shard.size;
+            }
+            throw new AssertionError("sizes changed under lock");
+        } finally {
+            for (int k = 0; k < locked; k++) {
+                shards[k].lock.unlock();
+            }
+        }
+    }
+
+    /**
+     *  return an iterator over a uniformly shuffled snapshot of the items
+     */
+    public Iterator<Item> iterator()  {
+        Object[] snapshot = new Object[Math.max(size(), MIN_CAPACITY)];
+        int count = 0;
+        for (Shard<Item> shard : shards) {
+            shard.lock.lock();
+            try {
+                if (count + shard.size > snapshot.length) {
+                    snapshot = java.util.Arrays.copyOf(snapshot,
+                            Math.max(2 * snapshot.length, count + shard.size));
+                }
+                System.arraycopy(shard.items, 0, snapshot, count, shard.size);
+                count += shard.size;
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        SplittableRandom rnd = random.get();
+        for (int i = count - 1; i > 0; i--) {
+            int r = rnd.nextInt(i + 1);
+            Object swap = snapshot[r];
+            snapshot[r] = snapshot[i];
+            snapshot[i] = swap;
+        }
+        return new SnapshotIterator(snapshot, count);
+    }
+
+    private class SnapshotIterator implements Iterator<Item> {
+        /** shuffled copy of the items. **/
+        private final Object[] snapshot;
+
+        /** number of items in snapshot. **/
+        private final int count;
+
+        private int currentIndex;
+
+        SnapshotIterator(Object[] snapshot, int count) {
+            this.snapshot = snapshot;
+            this.count = count;
+        }
+
+        /**
+         * 
+         */
+        public boolean hasNext() {
+            return currentIndex < count;
+        }
+
+        /**
+         * 
+         */
+        @SuppressWarnings("unchecked")
+        public Item next() {
+            if (currentIndex >= count) {
+                throw new java.util.NoSuchElementException();
+            }
+            return (Item) snapshot[currentIndex++];
+        }
+
+        /** 
+         * Not supported.
+         */
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * One lock-guarded dense array, with RandomizedQueue's removal: the
+     * last item moves into the hole.
+     */
+    private static final class Shard<Item> {
+        /** guards items and size. **/
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /** items[0..size) is dense. **/
+        private Item[] items = newArray(MIN_CAPACITY);
+
+        /** written under lock, read without it to weight the shard choice. **/
+        private volatile int size;
+
+        void add(Item item) {
+            if (size == items.length) {
+                resize(2 * items.length);
+            }
+            items[size] = item;
+            size = size + 1;
+        }
+
+        Item remove(int i) {
+            int last = size - 1;
+            Item item = items[i];
+            items[i] = items[last];
+            items[last] = null;
+            size = last;
+            if (items.length > MIN_CAPACITY && last <= items.length / 4) {
+                resize(items.length / 2);
+            }
+            return item;
+        }
+
+        private void resize(int capacity) {
+            Item[] temp = newArray(capacity);
+            System.arraycopy(items, 0, temp, 0, size);
+            items = temp;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <Item> Item[] newArray(int capacity) {
+            return (Item[]) new Object[capacity];
+        }
+    }
+}
@@ -0,0 +1,193 @@
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link ShardedRandomizedQueue}, including chi-square
+ * measurements of how uniform its sampling is.
+ */
+public class ShardedRandomizedQueueTest {
+
+    /** chi-square critical value, 9 degrees of freedom, p = 0.001. **/
+    private static final double CHI2_9DF = 27.88;
+
+    /** chi-square critical value, 19 degrees of freedom, p = 0.001. **/
+    private static final double CHI2_19DF = 43.82;
+
+    private static double chiSquare(int[] observed, double expected) {
+        double chi2 = 0.0;
+        for (int o : observed) {
+            chi2 += (o - expected) * (o - expected) / expected;
+        }
+        return chi2;
+    }
+
+    /**
+     * With no concurrent modification sample() is exactly uniform, even
+     * though the shards hold different numbers of items.
+     */
+    @Test
+    public void testSampleUniformQuiescent() {
+        ShardedRandomizedQueue<Integer> q = new ShardedRandomizedQueue<Integer>(4, 1);
+        for (int i = 0; i < 20; i++) {
+            q.enqueue(i);
+        }
+        int trials = 200000;
+        int[] counts = new int[20];
+        for (int t = 0; t < trials; t++) {
+            counts[q.sample()]++;
+        }
+        double chi2 = chiSquare(counts, trials / 20.0);
+        assertTrue("chi2=" + chi2, chi2 < CHI2_19DF);
+    }
+
+    /**
+     * The first item dequeued from a fresh queue is uniform.
+     */
+    @Test
+    public void testDequeueUniformQuiescent() {
+        int trials = 50000;
+        int[] counts = new int[10];
+        for (int t = 0; t < trials; t++) {
+            ShardedRandomizedQueue<Integer> q = new ShardedRandomizedQueue<Integer>(3, t);
+            for (int i = 0; i < 10; i++) {
+                q.enqueue(i);
+            }
+            counts[q.dequeue()]++;
+        }
+        double chi2 = chiSquare(counts, trials / 10.0);
+        assertTrue("chi2=" + chi2, chi2 < CHI2_9DF);
+    }
+
+    /**
+     * Producers and consumers run together; every item comes out exactly
+     * once.
+     */
+    @Test
+    public void testConcurrentExactlyOnce() throws InterruptedException {
+        final int producers = 4;
+        final int perProducer = 50000;
+        final int total = producers * perProducer;
+        final ShardedRandomizedQueue<Integer> q = new ShardedRandomizedQueue<Integer>(8, 7);
+        final AtomicIntegerArray seen = new AtomicIntegerArray(total);
+        final AtomicInteger taken = new AtomicInteger();
+        Thread[] threads = new Thread[2 * producers];
+        for (int p = 0; p < producers; p++) {
+            final int base = p * perProducer;
+            threads[p] = new Thread(new Runnable() {
+                public void run() {
+                    for (int i = 0; i < perProducer; i++) {
+                        q.enqueue(base + i);
+                    }
+                }
+            });
+            threads[producers + p] = new Thread(new Runnable() {
+                public void run() {
+                    while (taken.get() < total) {
+                        Integer item = q.poll();
+                        if (item != null) {
+                            seen.incrementAndGet(item);
+                            taken.incrementAndGet();
+                        }
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(q.isEmpty());
+        for (int i = 0; i < total; i++) {
+            assertEquals("item " + i, 1, seen.get(i));
+        }
+    }
+
+    /**
+     * One thread keeps moving items between shards while the queue never
+     * drops below one item; sample() must never report it empty, even when
+     * its unlocked size reads miss every item.
+     */
+    @Test
+    public void testNeverSpuriouslyEmpty() throws InterruptedException {
+        final ShardedRandomizedQueue<Integer> q = new ShardedRandomizedQueue<Integer>(16, 5);
+        q.enqueue(0);
+        q.enqueue(1);
+        final AtomicInteger running = new AtomicInteger(1);
+        Thread mover = new Thread(new Runnable() {
+            public void run() {
+                for (int i = 0; i < 500000; i++) {
+                    q.enqueue(q.dequeue());
+                }
+                running.set(0);
+            }
+        });
+        mover.start();
+        int misses = 0;
+        while (running.get() == 1) {
+            try {
+                q.sample();
+            } catch (java.util.NoSuchElementException e) {
+                misses++;
+            }
+        }
+        mover.join();
+        assertEquals(0, misses);
+        assertEquals(2, q.size());
+    }
+
+    /**
+     * Four threads drain a full queue concurrently. The items taken in the
+     * first tenth of the drain, grouped by id decile, should be spread
+     * evenly. Interleaving is not reproducible, so the bound is three times
+     * the p = 0.001 critical value; a shard-size bias large enough to matter
+     * shows up far above it.
+     */
+    @Test
+    public void testConcurrentDrainNearUniform() throws InterruptedException {
+        final int n = 200000;
+        final ShardedRandomizedQueue<Integer> q = new ShardedRandomizedQueue<Integer>(8, 3);
+        for (int i = 0; i < n; i++) {
+            q.enqueue(i);
+        }
+        final AtomicInteger position = new AtomicInteger();
+        final AtomicIntegerArray early = new AtomicIntegerArray(10);
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    Integer item;
+                    while ((item = q.poll()) != null) {
+                        if (position.getAndIncrement() < n / 10) {
+                            early.incrementAndGet(item / (n / 10));
+                        }
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        int[] counts = new int[10];
+        for (int d = 0; d < 10; d++) {
+            counts[d] = early.get(d);
+        }
+        double chi2 = chiSquare(counts, n / 100.0);
+        assertTrue("chi2=" + chi2, chi2 < 3 * CHI2_9DF);
+        assertEquals(n, position.get());
+    }
+}
@@ -1,26 +1,79 @@
 import java.util.Iterator;
 
-import edu.princeton.cs.algs4.StdIn;
 import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
 
 /**
  **The <tt>Subset</tt> class provides an input mechanism for the shuffling
  *data.
  * <p>
+ * To run: java Subset k [stream] &lt; input
+ * (compile with javac -sourcepath .:../common Subset.java)
+ * <p>
+ * By default every token is held in a <tt>RandomizedQueue</tt>. With
+ * <tt>stream</tt> only k tokens are kept: the input is reservoir sampled
+ * in one pass with Li's Algorithm L, which jumps over a geometrically
+ * distributed number of tokens between replacements. The skipped tokens
+ * are stepped over by <tt>TokenScanner</tt> without ever being decoded,
+ * so after the first k the cost is a byte scan plus O(k log(n/k))
+ * strings, and memory is O(k) however large the input.
+ * <p>
  * Reference:
  * http://coursera.cs.princeton.edu/algs4/assignments/queues.html
+ * Li, K.-H., "Reservoir-Sampling Algorithms of Time Complexity
+ * O(n(1 + log(N/n)))", ACM TOMS 20(4), 1994.
  * @author Andrew Lienhard.
  * February 10th, 2015
  * @param <Item>
  */
 public class Subset {
-    public static void main(String[] args) {
-        RandomizedQueue<String> rq = new RandomizedQueue<String>();
-        while (!StdIn.isEmpty())
-        {
-            String s = StdIn.readString();
-            rq.enqueue(s);
+
+    /**
+     * Draws a uniform k-subset of the scanner's tokens in one pass.
+     * @param tokens
+     * @param k
+     * @return the sample, in uniformly random order; shorter than k only if
+     *         the input has fewer than k tokens
+     */
+    public static String[] reservoirSample(TokenScanner tokens, int k) {
+        if (k < 0) {
+            throw new java.lang.IllegalArgumentException("k must be non-negative");
         }
+        String[] reservoir = new String[k];
+        int filled = 0;
+        while (filled < k && tokens.hasNext()) {
+            reservoir[filled++] = tokens.next();
+        }
+        if (filled < k) {
+            reservoir = java.util.Arrays.copyOf(reservoir, filled);
+        } else if (k > 0) {
+            double w = Math.exp(Math.log(openUniform()) / k);
+            while (true) {
+                long gap = (long) Math.floor(Math.log(openUniform()) / Math.log1p(-w));
+                if (tokens.skip(gap) < gap || !tokens.hasNext()) {
+                    break;
+                }
+                reservoir[StdRandom.uniform(k)] = tokens.next();
+                w *= Math.exp(Math.log(openUniform()) / k);
+            }
+        }
+        // replacement slots are random but the initial fill is in input order
+        StdRandom.shuffle(reservoir);
+        return reservoir;
+    }
+
+    /**
+     * @return a uniform double in (0, 1)
+     */
+    private static double openUniform() {
+        double u;
+        do {
+            u = StdRandom.uniform();
+        } while (u == 0.0);
+        return u;
+    }
+
+    public static void main(String[] args) {
         int max = 0;
         try {
             max = Integer.parseInt(args[0]);
@@ -28,6 +81,26 @@ public class Subset {
             System.err.println("Argument" + args[0] + " must be an integer.");
         }
 
+        if (args.length > 1 && "stream".equals(args[1])) {
+            String[] sample;
+            try (TokenScanner tokens = new TokenScanner(System.in)) {
+                sample = reservoirSample(tokens, max);
+            }
+            for (String s : sample) {
+                StdOut.println(s);
+            }
+            return;
+        }
+
+        RandomizedQueue<String> rq = new RandomizedQueue<String>();
+        try (TokenScanner tokens = new TokenScanner(System.in)) {
+            while (tokens.hasNext())
+            {
+                String s = tokens.next();
+                rq.enqueue(s);
+            }
+        }
+
         Iterator<String> iter = rq.iterator();
         int count = 0;
         while (iter.hasNext() && count++ < max) {
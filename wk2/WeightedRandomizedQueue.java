@@ -0,0 +1,326 @@
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+
+/**
+ *The <tt>WeightedRandomizedQueue</tt> class is a <tt>RandomizedQueue</tt>
+ *whose <tt>sample()</tt> and <tt>dequeue()</tt> pick each item with
+ *probability proportional to the weight it was enqueued with.
+ * <p>
+ * Items and weights sit in dense parallel arrays, as in
+ * <tt>RandomizedQueue</tt>. A Fenwick (binary indexed) tree over the
+ * weights gives prefix sums. A draw picks a uniform point in
+ * [0, total weight) and descends the tree to the item covering it, in
+ * O(log n). Removal still moves the last item into the hole, which is two
+ * O(log n) point updates. Growth and shrinkage rebuild the tree from the
+ * weights in O(n), so enqueue is O(log n) amortized. The rebuild also
+ * clears the rounding drift left by incremental updates.
+ * @param <Item>
+ */
+public class WeightedRandomizedQueue<Item> implements Iterable<Item> {
+
+    /** smallest capacity the arrays shrink to. **/
+    private static final int MIN_CAPACITY = 2;
+
+    /** items; s[0..numItems) is dense. **/
+    private Item[] s;
+
+    /** weight of s[i]. **/
+    private double[] weights;
+
+    /** Fenwick tree over weights, 1-based; length is s.length + 1. **/
+    private double[] tree;
+
+    /** Number of items in queue. **/
+    private int numItems;
+
+    /** structural modifications so far; iterators fail fast on a change. **/
+    private int modCount;
+
+    /**
+     * Construct an empty weighted randomized queue
+     */
+    public WeightedRandomizedQueue() {
+        s = initArray(MIN_CAPACITY);
+        weights = new double[MIN_CAPACITY];
+        tree = new double[MIN_CAPACITY + 1];
+    }
+
+    /**
+     * is the queue empty?
+     * @return
+     */
+    public boolean isEmpty() {
+        return numItems == 0;
+    }
+
+    /**
+     * Return the number of items on the queue
+     * @return
+     */
+    public int size() {
+        return numItems;
+    }
+
+    /**
+     * Return the sum of the weights of the items on the queue
+     * @return
+     */
+    public double totalWeight() {
+        return prefixSum(tree, numItems);
+    }
+
+    /**
+     * add the item with the given positive, finite weight
+     * @param item
+     * @param weight
+     */
+    public void enqueue(Item item, double weight) {
+        if (null == item) {
+            throw new java.lang.NullPointerException();
+        }
+        if (!(weight > 0.0) || Double.isInfinite(weight)) {
+            throw new java.lang.IllegalArgumentException("weight must be positive and finite: " + weight);
+        }
+        if (numItems == s.length) {
+            resize(2 * s.length);
+        }
+        s[numItems] = item;
+        weights[numItems] = weight;
+        add(tree, numItems, weight);
+        numItems++;
+        modCount++;
+    }
+
+    /**
+     * delete and return an item chosen with probability proportional to
+     * its weight
+     * @return
+     */
+    public Item dequeue() {
+        if (isEmpty()) {
+            throw new java.util.NoSuchElementException();
+        }
+        int pick = select(tree, StdRandom.uniform() * totalWeight(), numItems);
+        Item item = s[pick];
+        int last = numItems - 1;
+        // move the last item into the hole
+        add(tree, pick, weights[last] - weights[pick]);
+        add(tree, last, -weights[last]);
+        s[pick] = s[last];
+        weights[pick] = weights[last];
+        s[last] = null;
+        weights[last] = 0.0;
+        numItems--;
+        modCount++;
+        if (s.length > MIN_CAPACITY && numItems <= s.length / 4) {
+            resize(s.length / 2);
+        }
+        return item;
+    }
+
+    /**
+     * return (but do not delete) an item chosen with probability
+     * proportional to its weight
+     * @return
+     */
+    public Item sample() {
+        if (isEmpty()) {
+            throw new java.util.NoSuchElementException();
+        }
+        return s[select(tree, StdRandom.uniform() * totalWeight(), numItems)];
+    }
+
+    /**
+     * Moves the dense prefix into arrays of the given capacity and rebuilds
+     * the tree from the weights.
+     * @param capacity
+     */
+    private void resize(int capacity) {
+        Item[] temp = initArray(capacity);
+        System.arraycopy(s, 0, temp, 0, numItems);
+        s = temp;
+        weights = java.util.Arrays.copyOf(weights, capacity);
+        tree = build(weights, numItems);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Item[] initArray(int size) {
+        return (Item[]) new Object[size];
+    }
+
+    /**
+     * Builds a Fenwick tree over w[0..n) in O(length).
+     * @param w
+     * @param n
+     * @return
+     */
+    private static double[] build(double[] w, int n) {
+        double[] t = new double[w.length + 1];
+        System.arraycopy(w, 0, t, 1, n);
+        for (int i = 1; i < t.length; i++) {
+            int parent = i + (i & -i);
+            if (parent < t.length) {
+                t[parent] += t[i];
+            }
+        }
+        return t;
+    }
+
+    /**
+     * Adds delta to the weight at 0-based index i.
+     */
+    private static void add(double[] t, int i, double delta) {
+        for (int k = i + 1; k < t.length; k += k & -k) {
+            t[k] += delta;
+        }
+    }
+
+    /**
+     * Sum of the weights at 0-based indices [0, n).
+     */
+    private static double prefixSum(double[] t, int n) {
+        double sum = 0.0;
+        for (int k = n; k > 0; k -= k & -k) {
+            sum += t[k];
+        }
+        return sum;
+    }
+
+    /**
+     * Finds the index whose weight interval contains target, that is the
+     * largest i with prefixSum(i) &lt;= target. Clamped below n, since
+     * rounding can put target at or past the total.
+     */
+    private static int select(double[] t, double target, int n) {
+        int pos = 0;
+        for (int step = Integer.highestOneBit(t.length - 1); step > 0; step >>= 1) {
+            int next = pos + step;
+            if (next < t.length && t[next] <= target) {
+                target -= t[next];
+                pos = next;
+            }
+        }
+        return Math.min(pos, n - 1);
+    }
+
+    /**
+     *  return an iterator over the items in weighted random order: each
+     *  step picks among the items not yet returned with probability
+     *  proportional to weight. O(n) to start, O(log n) per item.
+     */
+    public Iterator<Item> iterator()  {
+        return new WeightedIterator();
+    }
+
+    private class WeightedIterator implements Iterator<Item> {
+        /** private copy of the tree; returned items are zeroed in it. **/
+        private final double[] remaining;
+
+        /** weight of each item not yet returned; exactly 0 once returned. **/
+        private final double[] left;
+
+        /** weight left in remaining. **/
+        private double total;
+
+        /** items returned so far. **/
+        private int returned;
+
+        /** modCount seen at construction. **/
+        private final int expectedModCount;
+
+        public WeightedIterator() {
+            remaining = build(weights, numItems);
+            left = java.util.Arrays.copyOf(weights, numItems);
+            total = prefixSum(remaining, numItems);
+            expectedModCount = modCount;
+        }
+
+        /**
+         * 
+         */
+        public boolean hasNext() {
+            return returned < numItems;
+        }
+
+        /**
+         * 
+         */
+        public Item next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (returned >= numItems) {
+                throw new java.util.NoSuchElementException();
+            }
+            int pick = select(remaining, StdRandom.uniform() * total, numItems);
+            // rounding can land on an item already returned; take the nearest live one
+            while (pick > 0 && left[pick] == 0.0) {
+                pick--;
+            }
+            while (left[pick] == 0.0) {
+                pick++;
+            }
+            add(remaining, pick, -left[pick]);
+            total -= left[pick];
+            left[pick] = 0.0;
+            returned++;
+            return s[pick];
+        }
+
+        /** 
+         * Not supported.
+         */
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * unit testing
+     * @param args
+     */
+    public static void main(String[] args) {
+        int trials = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        WeightedRandomizedQueue<String> backends = new WeightedRandomizedQueue<String>();
+        String[] names = {"a", "b", "c", "d"};
+        double[] w = {1, 2, 3, 4};
+        for (int i = 0; i < names.length; i++) {
+            backends.enqueue(names[i], w[i]);
+        }
+        java.util.Map<String, Integer> counts = new java.util.TreeMap<String, Integer>();
+        for (int t = 0; t < trials; t++) {
+            String name = backends.sample();
+            Integer c = counts.get(name);
+            counts.put(name, c == null ? 1 : c + 1);
+        }
+        for (int i = 0; i < names.length; i++) {
+            StdOut.printf("%s weight %.0f: %.4f (expected %.4f)%n", names[i], w[i],
+                    counts.get(names[i]) / (double) trials, w[i] / 10.0);
+        }
+
+        // dequeue everything: each item once, heavy items tend to leave first
+        WeightedRandomizedQueue<Integer> q = new WeightedRandomizedQueue<Integer>();
+        int n = 100000;
+        for (int i = 0; i < n; i++) {
+            q.enqueue(i, i < n / 2 ? 1.0 : 9.0);
+        }
+        boolean[] seen = new boolean[n];
+        int duplicates = 0;
+        int heavyInFirstTenth = 0;
+        for (int k = 0; k < n; k++) {
+            int item = q.dequeue();
+            if (seen[item]) {
+                duplicates++;
+            }
+            seen[item] = true;
+            if (k < n / 10 && item >= n / 2) {
+                heavyInFirstTenth++;
+            }
+        }
+        StdOut.printf("duplicates=%d heavy share of first tenth=%.3f (expected ~0.9) left=%d%n",
+                duplicates, heavyInFirstTenth / (double) (n / 10), q.size());
+    }
+}
@@ -0,0 +1,95 @@
+import java.util.Iterator;
+
+import benchmark.DequeBenchmark;
+/**
+ * The <tt>DequeBenchmarkTarget</tt> class exposes the default-package
+ * deques to <tt>benchmark.DequeBenchmark</tt>, which JMH requires to live
+ * in a named package.
+ */
+public class DequeBenchmarkTarget implements DequeBenchmark.Target {
+    /**
+     * Builds an empty single-threaded deque.
+     * @param impl LINKED or RING
+     * @return the deque
+     */
+    public DequeBenchmark.Sequential sequential(String impl) {
+        if (impl.equals("LINKED")) {
+            final Deque<Integer> deque = new Deque<Integer>();
+            return new DequeBenchmark.Sequential() {
+                public void addFirst(Integer item) {
+                    deque.addFirst(item);
+                }
+                public void addLast(Integer item) {
+                    deque.addLast(item);
+                }
+                public Integer removeFirst() {
+                    return deque.removeFirst();
+                }
+                public Iterator<Integer> iterator() {
+                    return deque.iterator();
+                }
+            };
+        }
+        if (impl.equals("RING")) {
+            final RingDeque<Integer> deque = new RingDeque<Integer>();
+            return new DequeBenchmark.Sequential() {
+                public void addFirst(Integer item) {
+                    deque.addFirst(item);
+                }
+                public void addLast(Integer item) {
+                    deque.addLast(item);
+                }
+                public Integer removeFirst() {
+                    return deque.removeFirst();
+                }
+                public Iterator<Integer> iterator() {
+                    return deque.iterator();
+                }
+            };
+        }
+        throw new IllegalArgumentException("Unknown deque " + impl);
+    }
+
+    /**
+     * Builds an empty deque safe to share between threads.
+     * @param impl LOCK_FREE or SYNCHRONIZED
+     * @return the deque
+     */
+    public DequeBenchmark.Shared shared(String impl) {
+        if (impl.equals("LOCK_FREE")) {
+            final ConcurrentDeque<Integer> deque = new ConcurrentDeque<Integer>();
+            return new DequeBenchmark.Shared() {
+                public void addFirst(Integer item) {
+                    deque.addFirst(item);
+                }
+                public void addLast(Integer item) {
+                    deque.addLast(item);
+                }
+                public Integer pollFirst() {
+                    return deque.pollFirst();
+                }
+                public Integer pollLast() {
+                    return deque.pollLast();
+                }
+            };
+        }
+        if (impl.equals("SYNCHRONIZED")) {
+            final Deque<Integer> deque = new Deque<Integer>();
+            return new DequeBenchmark.Shared() {
+                public synchronized void addFirst(Integer item) {
+                    deque.addFirst(item);
+                }
+                public synchronized void addLast(Integer item) {
+                    deque.addLast(item);
+                }
+                public synchronized Integer pollFirst() {
+                    return deque.isEmpty() ? null : deque.removeFirst();
+                }
+                public synchronized Integer pollLast() {
+                    return deque.isEmpty() ? null : deque.removeLast();
+                }
+            };
+        }
+        throw new IllegalArgumentException("Unknown deque " + impl);
+    }
+}
@@ -0,0 +1,38 @@
+import benchmark.ShardedQueueBenchmark;
+/**
+ * The <tt>ShardedQueueBenchmarkTarget</tt> class exposes the default-package
+ * randomized queues to <tt>benchmark.ShardedQueueBenchmark</tt>, which JMH
+ * requires to live in a named package.
+ */
+public class ShardedQueueBenchmarkTarget implements ShardedQueueBenchmark.Target {
+    /**
+     * Builds an empty queue safe to share between threads.
+     * @param impl SHARDED or SYNCHRONIZED
+     * @return the queue
+     */
+    public ShardedQueueBenchmark.Queue create(String impl) {
+        if (impl.equals("SHARDED")) {
+            final ShardedRandomizedQueue<Integer> queue = new ShardedRandomizedQueue<Integer>();
+            return new ShardedQueueBenchmark.Queue() {
+                public void enqueue(Integer item) {
+                    queue.enqueue(item);
+                }
+                public Integer poll() {
+                    return queue.poll();
+                }
+            };
+        }
+        if (impl.equals("SYNCHRONIZED")) {
+            final RandomizedQueue<Integer> queue = new RandomizedQueue<Integer>();
+            return new ShardedQueueBenchmark.Queue() {
+                public synchronized void enqueue(Integer item) {
+                    queue.enqueue(item);
+                }
+                public synchronized Integer poll() {
+                    return queue.isEmpty() ? null : queue.dequeue();
+                }
+            };
+        }
+        throw new IllegalArgumentException("Unknown queue " + impl);
+    }
+}
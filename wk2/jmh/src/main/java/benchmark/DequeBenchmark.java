@@ -0,0 +1,223 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+/**
+ * The <tt>DequeBenchmark</tt> class holds the JMH benchmarks for the wk2
+ * deques.
+ * <ul>
+ * <li>queue, stack, iterate: the linked <tt>Deque</tt> against the
+ *     array-backed <tt>RingDeque</tt> on one thread. queue is an addLast
+ *     and a removeFirst, stack an addFirst and a removeFirst, both on a
+ *     deque holding n items, so the size stays put; iterate is one full
+ *     pass over n items. Items are boxed in <tt>@Setup</tt>, so
+ *     <tt>-prof gc</tt> counts only the deque's own allocation.</li>
+ * <li>contended: <tt>ConcurrentDeque</tt> against a <tt>synchronized</tt>
+ *     <tt>Deque</tt>, shared by every benchmark thread, each cycling
+ *     addFirst, addLast, pollFirst, pollLast with <tt>work</tt> tokens of
+ *     private computation between operations. Scaling shows when the run
+ *     is repeated with -t 1, 2, 4, ... on as many cores.</li>
+ * </ul>
+ * JMH refuses benchmarks in the default package, so the deques are reached
+ * through the interfaces below, implemented by the default-package
+ * <tt>DequeBenchmarkTarget</tt> (see <tt>PercolationBenchmark</tt> in
+ * wk1/jmh).
+ * <p>
+ * Build and run from wk2/jmh (see pom.xml):
+ *         mvn -B package
+ *         mvn -B exec:exec -Djmh.args="DequeBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DequeBenchmark {
+    /** Default-package implementation of <tt>Target</tt>. **/
+    private static final String TARGET = "DequeBenchmarkTarget";
+
+    /**
+     * Factory for the code under test.
+     */
+    public interface Target {
+        /**
+         * @param impl LINKED (<tt>Deque</tt>) or RING (<tt>RingDeque</tt>)
+         * @return an empty deque
+         */
+        Sequential sequential(String impl);
+
+        /**
+         * @param impl LOCK_FREE (<tt>ConcurrentDeque</tt>) or SYNCHRONIZED
+         *             (<tt>Deque</tt> behind one lock)
+         * @return an empty deque safe to share between threads
+         */
+        Shared shared(String impl);
+    }
+
+    /**
+     * A single-threaded deque.
+     */
+    public interface Sequential extends Iterable<Integer> {
+        void addFirst(Integer item);
+        void addLast(Integer item);
+        Integer removeFirst();
+    }
+
+    /**
+     * A deque shared by benchmark threads.
+     */
+    public interface Shared {
+        void addFirst(Integer item);
+        void addLast(Integer item);
+        Integer pollFirst();
+        Integer pollLast();
+    }
+
+    /**
+     * @return the <tt>Target</tt> implementation
+     */
+    static Target target() {
+        try {
+            return (Target) Class.forName(TARGET).newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("cannot load " + TARGET, e);
+        }
+    }
+
+    /**
+     * A deque holding n boxed items.
+     */
+    @State(Scope.Thread)
+    public static class Filled {
+        /** Deque implementation. **/
+        @Param({"LINKED", "RING"})
+        public String impl;
+
+        /** Items held. **/
+        @Param({"1000", "1000000"})
+        public int n;
+
+        /** The deque. **/
+        Sequential deque;
+
+        /** The item added by the next operation. **/
+        Integer item;
+
+        /**
+         * Builds and fills the deque.
+         */
+        @Setup(Level.Trial)
+        public void fill() {
+            deque = target().sequential(impl);
+            for (int i = 0; i < n; i++) {
+                deque.addLast(i);
+            }
+            item = n;
+        }
+    }
+
+    /**
+     * One deque shared by all threads.
+     */
+    @State(Scope.Benchmark)
+    public static class Contended {
+        /** Deque implementation. **/
+        @Param({"LOCK_FREE", "SYNCHRONIZED"})
+        public String impl;
+
+        /** Blackhole.consumeCPU tokens between operations. **/
+        @Param({"0", "50"})
+        public long work;
+
+        /** The deque. **/
+        Shared deque;
+
+        /**
+         * Builds the deque.
+         */
+        @Setup(Level.Trial)
+        public void create() {
+            deque = target().shared(impl);
+        }
+    }
+
+    /**
+     * A thread's position in the add/poll cycle.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        /** Operations done by this thread. **/
+        int i;
+
+        /** The item this thread adds. **/
+        final Integer token = 1;
+    }
+
+    /**
+     * addLast then removeFirst.
+     * @param state the deque
+     * @return the item removed
+     */
+    @Benchmark
+    public Integer queue(Filled state) {
+        state.deque.addLast(state.item);
+        return state.deque.removeFirst();
+    }
+
+    /**
+     * addFirst then removeFirst.
+     * @param state the deque
+     * @return the item removed
+     */
+    @Benchmark
+    public Integer stack(Filled state) {
+        state.deque.addFirst(state.item);
+        return state.deque.removeFirst();
+    }
+
+    /**
+     * One full iteration.
+     * @param state the deque
+     * @param blackhole consumes every item
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void iterate(Filled state, Blackhole blackhole) {
+        for (Integer item : state.deque) {
+            blackhole.consume(item);
+        }
+    }
+
+    /**
+     * The next operation of this thread's cycle on the shared deque.
+     * @param state the deque
+     * @param cursor this thread's cycle
+     * @param blackhole consumes polled items
+     */
+    @Benchmark
+    @Threads(4)
+    public void contended(Contended state, Cursor cursor, Blackhole blackhole) {
+        Shared deque = state.deque;
+        switch (cursor.i++ & 3) {
+            case 0: deque.addFirst(cursor.token); break;
+            case 1: deque.addLast(cursor.token); break;
+            case 2: blackhole.consume(deque.pollFirst()); break;
+            default: blackhole.consume(deque.pollLast()); break;
+        }
+        Blackhole.consumeCPU(state.work);
+    }
+}
@@ -0,0 +1,134 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+/**
+ * The <tt>ShardedQueueBenchmark</tt> class measures
+ * <tt>ShardedRandomizedQueue</tt> against a <tt>RandomizedQueue</tt> behind
+ * one lock. All benchmark threads share one queue, prefilled with
+ * <tt>size</tt> items, and alternate enqueue and poll, so the size stays
+ * around its start. Scaling shows when the run is repeated with -t 1, 2,
+ * 4, ... on as many cores.
+ * <p>
+ * The queues are reached through <tt>Target</tt>, implemented by the
+ * default-package <tt>ShardedQueueBenchmarkTarget</tt> (see
+ * <tt>DequeBenchmark</tt>).
+ * <p>
+ * Build and run from wk2/jmh (see pom.xml):
+ *         mvn -B package
+ *         mvn -B exec:exec -Djmh.args="ShardedQueueBenchmark -t 4 -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ShardedQueueBenchmark {
+    /** Default-package implementation of <tt>Target</tt>. **/
+    private static final String TARGET = "ShardedQueueBenchmarkTarget";
+
+    /**
+     * Factory for the code under test.
+     */
+    public interface Target {
+        /**
+         * @param impl SHARDED (<tt>ShardedRandomizedQueue</tt>) or
+         *             SYNCHRONIZED (<tt>RandomizedQueue</tt> behind one lock)
+         * @return an empty queue safe to share between threads
+         */
+        Queue create(String impl);
+    }
+
+    /**
+     * A randomized queue shared by benchmark threads.
+     */
+    public interface Queue {
+        void enqueue(Integer item);
+
+        /**
+         * @return a random item, removed, or null if the queue is empty
+         */
+        Integer poll();
+    }
+
+    /**
+     * @return the <tt>Target</tt> implementation
+     */
+    static Target target() {
+        try {
+            return (Target) Class.forName(TARGET).newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("cannot load " + TARGET, e);
+        }
+    }
+
+    /**
+     * One queue shared by all threads.
+     */
+    @State(Scope.Benchmark)
+    public static class Shared {
+        /** Queue implementation. **/
+        @Param({"SHARDED", "SYNCHRONIZED"})
+        public String impl;
+
+        /** Items in the queue at the start. **/
+        @Param({"1000"})
+        public int size;
+
+        /** The queue. **/
+        Queue queue;
+
+        /**
+         * Builds and fills the queue.
+         */
+        @Setup(Level.Trial)
+        public void fill() {
+            queue = target().create(impl);
+            for (int i = 0; i < size; i++) {
+                queue.enqueue(i);
+            }
+        }
+    }
+
+    /**
+     * A thread's position in the enqueue/poll cycle.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        /** Operations done by this thread. **/
+        int i;
+
+        /** The item this thread enqueues. **/
+        final Integer token = 1;
+    }
+
+    /**
+     * The next operation of this thread's cycle on the shared queue.
+     * @param state the queue
+     * @param cursor this thread's cycle
+     * @param blackhole consumes polled items
+     */
+    @Benchmark
+    @Threads(4)
+    public void mixed(Shared state, Cursor cursor, Blackhole blackhole) {
+        if ((cursor.i++ & 1) == 0) {
+            state.queue.enqueue(cursor.token);
+        } else {
+            blackhole.consume(state.queue.poll());
+        }
+    }
+}
@@ -2,7 +2,6 @@
 
 import edu.princeton.cs.algs4.StdOut;
 import edu.princeton.cs.algs4.StdDraw;
-import edu.princeton.cs.algs4.In;
 
 
 public class Client {
@@ -10,13 +9,15 @@ public class Client {
 	public static void main(String[] args) {
 
 	    // read the n points from a file
-	    In in = new In(args[0]);
-	    int n = in.readInt();
-	    Point[] points = new Point[n];
-	    for (int i = 0; i < n; i++) {
-	        int x = in.readInt();
-	        int y = in.readInt();
-	        points[i] = new Point(x, y);
+	    Point[] points;
+	    try (TokenScanner in = new TokenScanner(args[0])) {
+	        int n = in.nextInt();
+	        points = new Point[n];
+	        for (int i = 0; i < n; i++) {
+	            int x = in.nextInt();
+	            int y = in.nextInt();
+	            points[i] = new Point(x, y);
+	        }
 	    }
 
 	    // draw the points
@@ -1,18 +1,19 @@
 import edu.princeton.cs.algs4.StdOut;
 
 import edu.princeton.cs.algs4.Stopwatch;
-import edu.princeton.cs.algs4.In;
 
 public class Test {
     public static void main(String[] args) {
 
         // create initial board from file
-        In in = new In(args[0]);
-        int n = in.readInt();
-        int[][] blocks = new int[n][n];
-        for (int i = 0; i < n; i++) {
-            for (int j = 0; j < n; j++)
-                blocks[i][j] = in.readInt();
+        int[][] blocks;
+        try (TokenScanner in = new TokenScanner(args[0])) {
+            int n = in.nextInt();
+            blocks = new int[n][n];
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++)
+                    blocks[i][j] = in.nextInt();
+            }
         }
 
         Board initial = new Board(blocks);
@@ -1,7 +1,7 @@
 /******************************************************************************
- *  Compilation:  javac NearestNeighborVisualizer.java
+ *  Compilation:  javac -sourcepath .:../common NearestNeighborVisualizer.java
  *  Execution:    java NearestNeighborVisualizer input.txt
- *  Dependencies: PointSET.java KdTree.java
+ *  Dependencies: PointSET.java KdTree.java ../common/TokenScanner.java
  *
  *  Read points from a file (specified as a command-line argument) and
  *  draw to standard draw. Highlight the closest point to the mouse.
@@ -11,7 +11,6 @@
  *
  ******************************************************************************/
 
-import edu.princeton.cs.algs4.In;
 import edu.princeton.cs.algs4.Point2D;
 import edu.princeton.cs.algs4.StdDraw;
 import edu.princeton.cs.algs4.StdOut;
@@ -20,19 +19,20 @@ public class NearestNeighborVisualizer {
 
     public static void main(String[] args) {
         String filename = args[0];
-        In in = new In(filename);
 
         StdDraw.enableDoubleBuffering();
 
         // initialize the two data structures with point from standard input
         PointSET brute = new PointSET();
         KdTree kdtree = new KdTree();
-        while (!in.isEmpty()) {
-            double x = in.readDouble();
-            double y = in.readDouble();
-            Point2D p = new Point2D(x, y);
-            kdtree.insert(p);
-            brute.insert(p);
+        try (TokenScanner in = new TokenScanner(filename)) {
+            while (in.hasNext()) {
+                double x = in.nextDouble();
+                double y = in.nextDouble();
+                Point2D p = new Point2D(x, y);
+                kdtree.insert(p);
+                brute.insert(p);
+            }
         }
 
         while (true) {
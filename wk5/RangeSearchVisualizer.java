@@ -1,7 +1,7 @@
 /******************************************************************************
- *  Compilation:  javac RangeSearchVisualizer.java
+ *  Compilation:  javac -sourcepath .:../common RangeSearchVisualizer.java
  *  Execution:    java RangeSearchVisualizer input.txt
- *  Dependencies: PointSET.java KdTree.java
+ *  Dependencies: PointSET.java KdTree.java ../common/TokenScanner.java
  *
  *  Read points from a file (specified as a command-line arugment) and
  *  draw to standard draw. Also draw all of the points in the rectangle
@@ -12,7 +12,6 @@
  *
  ******************************************************************************/
 
-import edu.princeton.cs.algs4.In;
 import edu.princeton.cs.algs4.Point2D;
 import edu.princeton.cs.algs4.RectHV;
 import edu.princeton.cs.algs4.StdDraw;
@@ -22,19 +21,20 @@ public class RangeSearchVisualizer {
     public static void main(String[] args) {
 
         String filename = args[0];
-        In in = new In(filename);
 
         StdDraw.enableDoubleBuffering();
 
         // initialize the data structures with N points from standard input
         PointSET brute = new PointSET();
         KdTree kdtree = new KdTree();
-        while (!in.isEmpty()) {
-            double x = in.readDouble();
-            double y = in.readDouble();
-            Point2D p = new Point2D(x, y);
-            kdtree.insert(p);
-            brute.insert(p);
+        try (TokenScanner in = new TokenScanner(filename)) {
+            while (in.hasNext()) {
+                double x = in.nextDouble();
+                double y = in.nextDouble();
+                Point2D p = new Point2D(x, y);
+                kdtree.insert(p);
+                brute.insert(p);
+            }
         }
 
         double x0 = 0.0, y0 = 0.0;      // initial endpoint of rectangle